@@ -0,0 +1,59 @@
+package com.valentinpopescu.store.benchmark;
+
+import com.valentinpopescu.store.StoreManagementApplication;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.service.ProductService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class BenchmarkApplication {
+
+    private static final int SEED_CHUNK_SIZE = 10_000;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                "spring.jpa.hibernate.ddl-auto=create",
+                "spring.h2.console.enabled=false",
+                "server.port=0",
+                "logging.level.root=WARN"
+        ));
+        args.addAll(List.of(properties));
+
+        return new SpringApplicationBuilder(StoreManagementApplication.class)
+                .web(webApplicationType)
+                .run(args.stream().map(arg -> "--" + arg).toArray(String[]::new));
+    }
+
+    static void seed(ProductService service, int catalogSize) {
+        List<ProductCreateRequest> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+        for (int i = 0; i < catalogSize; i++) {
+            chunk.add(request(i));
+            if (chunk.size() == SEED_CHUNK_SIZE) {
+                service.addAll(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            service.addAll(chunk);
+        }
+    }
+
+    static String productCode(int index) {
+        return "bench-" + index;
+    }
+
+    static ProductCreateRequest request(int index) {
+        return new ProductCreateRequest(productCode(index), "Benchmark product " + index,
+                BigDecimal.valueOf(100 + index % 10_000, 2));
+    }
+}
@@ -0,0 +1,74 @@
+package com.valentinpopescu.store.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valentinpopescu.store.product.service.ProductService;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductControllerBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"basic", "basic-uncached", "bearer"})
+    public String auth;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mvc;
+    private RequestPostProcessor credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "store.security.auth-cache.enabled=" + !auth.equals("basic-uncached"));
+        BenchmarkApplication.seed(context.getBean(ProductService.class), CATALOG_SIZE);
+        mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+        credentials = auth.equals("bearer") ? bearer() : httpBasic("user", "user123");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult find() throws Exception {
+        int index = ThreadLocalRandom.current().nextInt(CATALOG_SIZE);
+        MvcResult result = mvc.perform(get("/api/products/{productCode}", BenchmarkApplication.productCode(index))
+                        .with(credentials))
+                .andReturn();
+        if (result.getResponse().getStatus() != 200) {
+            throw new IllegalStateException("Unexpected status " + result.getResponse().getStatus());
+        }
+        return result;
+    }
+
+    private RequestPostProcessor bearer() throws Exception {
+        String body = mvc.perform(post("/api/auth/token").with(httpBasic("user", "user123")))
+                .andReturn().getResponse().getContentAsString();
+        String token = context.getBean(ObjectMapper.class).readTree(body).get("accessToken").asText();
+        return request -> {
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,64 @@
+package com.valentinpopescu.store.benchmark;
+
+import com.valentinpopescu.store.product.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductListBenchmark {
+
+    @Param({"1000", "10000"})
+    public int catalogSize;
+
+    @Param({"true", "false"})
+    public boolean listCache;
+
+    @Param({"identity", "gzip"})
+    public String acceptEncoding;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "store.products.list-cache.enabled=" + listCache);
+        BenchmarkApplication.seed(context.getBean(ProductService.class), catalogSize);
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        String credentials = Base64.getEncoder().encodeToString("user:user123".getBytes(StandardCharsets.UTF_8));
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products"))
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + credentials)
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] findAll() throws Exception {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,35 @@
+package com.valentinpopescu.store.benchmark;
+
+import com.valentinpopescu.store.product.common.ProductSamples;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductMappingBenchmark {
+
+    private Product product;
+    private ProductCreateRequest request;
+
+    @Setup
+    public void setUp() {
+        request = BenchmarkApplication.request(42);
+        product = ProductSamples.requestToProduct(request);
+        product.setId(42L);
+    }
+
+    @Benchmark
+    public ProductResponse productToResponse() {
+        return ProductSamples.productToResponse(product);
+    }
+
+    @Benchmark
+    public Product requestToProduct() {
+        return ProductSamples.requestToProduct(request);
+    }
+}
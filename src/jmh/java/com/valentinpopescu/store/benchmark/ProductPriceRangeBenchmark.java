@@ -0,0 +1,54 @@
+package com.valentinpopescu.store.benchmark;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.priceindex.ProductPriceIndex;
+import com.valentinpopescu.store.product.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductPriceRangeBenchmark {
+
+    @Param({"10000", "100000"})
+    public int catalogSize;
+
+    @Param({"true", "false"})
+    public boolean priceIndex;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "store.products.price-index.enabled=" + priceIndex);
+        service = context.getBean(ProductService.class);
+        BenchmarkApplication.seed(service, catalogSize);
+        context.getBean(ProductPriceIndex.class).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponse> findByPriceRange() {
+        BigDecimal min = BigDecimal.valueOf(100 + ThreadLocalRandom.current().nextInt(9_000), 2);
+        return service.findByPriceRange(min, min.add(BigDecimal.TEN), Sort.Direction.DESC, 20);
+    }
+
+    @Benchmark
+    public List<ProductResponse> findByWidePriceRange() {
+        return service.findByPriceRange(null, null, Sort.Direction.ASC, 20);
+    }
+}
@@ -0,0 +1,68 @@
+package com.valentinpopescu.store.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductSerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int listSize;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectWriter writer;
+    private List<ProductResponse> products;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, ProductResponse.class));
+        products = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            products.add(new ProductResponse((long) i, BenchmarkApplication.productCode(i),
+                    "Benchmark product " + i, BigDecimal.valueOf(100 + i, 2), 0L));
+        }
+        System.out.printf("%n%s, %d products: %d bytes, %d bytes gzipped%n",
+                format, listSize, serialize().length, serializeGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzip, products);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static JsonFactory factory(String format) {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.valentinpopescu.store.benchmark;
+
+import com.valentinpopescu.store.product.dto.ProductPage;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogSize;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private ProductService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "store.products.cache.maximum-size=" + (cached ? catalogSize : 0));
+        service = context.getBean(ProductService.class);
+        BenchmarkApplication.seed(service, catalogSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductResponse findByProductCode() {
+        int index = ThreadLocalRandom.current().nextInt(catalogSize);
+        return service.findByProductCode(BenchmarkApplication.productCode(index));
+    }
+
+    @Benchmark
+    public List<ProductResponse> search() {
+        int index = ThreadLocalRandom.current().nextInt(catalogSize);
+        return service.search("product " + index, 20);
+    }
+
+    @Benchmark
+    public ProductPage findFirstPage() {
+        return service.findPage(100, null);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ProductResponse> findAll() {
+        return service.findAll();
+    }
+}
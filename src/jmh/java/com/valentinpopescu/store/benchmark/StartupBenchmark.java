@@ -0,0 +1,136 @@
+package com.valentinpopescu.store.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Path APPLICATION = Path.of("target", "application").toAbsolutePath();
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final String CREDENTIALS = "Basic " + Base64.getEncoder()
+            .encodeToString("user:user123".getBytes(StandardCharsets.UTF_8));
+
+    @Param({"default", "prod", "prod-aot-cds"})
+    public String launch;
+
+    private Path jar;
+    private String databaseUrl;
+    private HttpClient client;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        jar = applicationJar();
+        databaseUrl = "jdbc:h2:file:" + Files.createTempDirectory("startup-bench").resolve("store");
+        client = HttpClient.newHttpClient();
+
+        Process schema = start(List.of("-Dspring.context.exit=onRefresh"), 0);
+        if (!schema.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS) || schema.exitValue() != 0) {
+            schema.destroyForcibly();
+            throw new IllegalStateException("Schema run for the startup benchmark failed");
+        }
+    }
+
+    @Benchmark
+    public int firstSuccessfulList() throws Exception {
+        int port = freePort();
+        process = start(jvmOptions(), port);
+        return awaitFirstList(port);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process == null) {
+            return;
+        }
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+        process = null;
+    }
+
+    private List<String> jvmOptions() {
+        return switch (launch) {
+            case "default" -> List.of();
+            case "prod" -> List.of("-Dspring.profiles.active=prod");
+            case "prod-aot-cds" -> List.of("-Dspring.profiles.active=prod", "-Dspring.aot.enabled=true",
+                    "-XX:SharedArchiveFile=" + APPLICATION.resolve("application.jsa"), "-Xlog:cds=off");
+            default -> throw new IllegalArgumentException("Unknown launch " + launch);
+        };
+    }
+
+    private Process start(List<String> jvmOptions, int port) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-jar", jar.toString(),
+                "--server.port=" + port,
+                "--spring.datasource.url=" + databaseUrl,
+                "--logging.level.root=WARN"));
+        return new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    private int awaitFirstList(int port) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products"))
+                .header("Authorization", CREDENTIALS)
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue());
+            }
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    return response.body().length();
+                }
+            } catch (ConnectException ignored) {
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("No successful GET /api/products within " + STARTUP_TIMEOUT);
+    }
+
+    private static Path applicationJar() throws IOException {
+        if (!Files.isDirectory(APPLICATION)) {
+            throw new IllegalStateException("Build the application first: ./mvnw -Pfast-startup package");
+        }
+        try (Stream<Path> files = Files.list(APPLICATION)) {
+            return files.filter(file -> file.toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + APPLICATION));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.valentinpopescu.store.auth.controller;
+
+import com.valentinpopescu.store.auth.dto.TokenResponse;
+import com.valentinpopescu.store.auth.service.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@SecurityRequirement(name = "basicAuth")
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final TokenService service;
+
+    @Operation(summary = "Issue access token", description = "Exchange HTTP Basic credentials for a short-lived signed bearer token")
+    @ApiResponse(responseCode = "200", description = "Token issued")
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/token")
+    public TokenResponse token(Authentication authentication) {
+        return service.issue(authentication);
+    }
+}
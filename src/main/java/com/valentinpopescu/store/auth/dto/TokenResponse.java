@@ -0,0 +1,7 @@
+package com.valentinpopescu.store.auth.dto;
+
+public record TokenResponse(
+        String accessToken,
+        String tokenType,
+        long expiresIn
+) {}
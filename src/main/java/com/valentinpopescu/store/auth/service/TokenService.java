@@ -0,0 +1,9 @@
+package com.valentinpopescu.store.auth.service;
+
+import com.valentinpopescu.store.auth.dto.TokenResponse;
+import org.springframework.security.core.Authentication;
+
+public interface TokenService {
+
+    TokenResponse issue(Authentication authentication);
+}
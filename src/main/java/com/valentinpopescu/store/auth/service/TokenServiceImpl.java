@@ -0,0 +1,61 @@
+package com.valentinpopescu.store.auth.service;
+
+import com.valentinpopescu.store.auth.dto.TokenResponse;
+import com.valentinpopescu.store.config.StoreSecurityProperties;
+import com.valentinpopescu.store.config.TokenConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@Log4j2
+@RequiredArgsConstructor
+public class TokenServiceImpl implements TokenService {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final String TOKEN_TYPE = "Bearer";
+
+    private final JwtEncoder encoder;
+    private final StoreSecurityProperties properties;
+
+    @Override
+    public TokenResponse issue(Authentication authentication) {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            throw new AccessDeniedException("Tokens can only be issued for username and password credentials");
+        }
+
+        StoreSecurityProperties.Token token = properties.getToken();
+        Duration timeToLive = token.getTimeToLive();
+        Instant now = Instant.now();
+        List<String> roles = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> authority.substring(ROLE_PREFIX.length()))
+                .toList();
+
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(token.getIssuer())
+                .subject(authentication.getName())
+                .issuedAt(now)
+                .expiresAt(now.plus(timeToLive))
+                .claim(TokenConfig.ROLES_CLAIM, roles)
+                .build();
+        JwsHeader header = JwsHeader.with(TokenConfig.ALGORITHM).build();
+        String value = encoder.encode(JwtEncoderParameters.from(header, claims)).getTokenValue();
+
+        log.info("Access token issued: username={}", authentication.getName());
+        return new TokenResponse(value, TOKEN_TYPE, timeToLive.toSeconds());
+    }
+}
@@ -0,0 +1,49 @@
+package com.valentinpopescu.store.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.valentinpopescu.store.datasource.RecentEvictions;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String PRODUCTS_CACHE = "products";
+
+    @Bean
+    RecentEvictions recentEvictions(DataSourceRoutingProperties routing) {
+        return new RecentEvictions(routing.isEnabled() ? routing.getReadYourWritesWindow() : Duration.ZERO);
+    }
+
+    @Bean
+    CacheManager cacheManager(ProductProperties properties, RecentEvictions recentEvictions) {
+        ProductProperties.Cache cache = properties.getCache();
+        Caffeine<Object, Object> caffeine = Caffeine.newBuilder()
+                .maximumSize(cache.getMaximumSize())
+                .recordStats();
+        if (cache.getTimeToLive() != null) {
+            caffeine.expireAfterWrite(cache.getTimeToLive());
+        }
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new ProductCaffeineCache(name, cache, isAllowNullValues(), recentEvictions);
+            }
+        };
+        cacheManager.setCaffeine(caffeine);
+        cacheManager.setCacheNames(List.of(PRODUCTS_CACHE));
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,65 @@
+package com.valentinpopescu.store.config;
+
+import com.valentinpopescu.store.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(prefix = "store.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    ReplicaRoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties,
+                                               DataSourceRoutingProperties properties) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new IllegalStateException("store.datasource.routing.replicas must list at least one replica");
+        }
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replica : properties.getReplicas()) {
+            replicas.add(replica(replica, "replica-" + replicas.size()));
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas, properties.getReadYourWritesWindow(),
+                properties.getHealthCheckInterval(), properties.getHealthCheckTimeout());
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    HealthIndicator dbHealthContributor(ReplicaRoutingDataSource routingDataSource) {
+        return new DataSourceHealthIndicator(routingDataSource);
+    }
+
+    private static HikariDataSource replica(DataSourceRoutingProperties.Replica properties, String poolName) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName(poolName);
+        replica.setJdbcUrl(properties.getUrl());
+        replica.setUsername(properties.getUsername());
+        replica.setPassword(properties.getPassword());
+        replica.setMaximumPoolSize(properties.getMaximumPoolSize());
+        replica.setReadOnly(true);
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+}
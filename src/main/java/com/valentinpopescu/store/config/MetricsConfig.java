@@ -0,0 +1,16 @@
+package com.valentinpopescu.store.config;
+
+import com.valentinpopescu.store.metrics.QueryMetricsFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    FilterRegistrationBean<QueryMetricsFilter> queryMetricsFilter(MeterRegistry registry) {
+        return new FilterRegistrationBean<>(new QueryMetricsFilter(registry));
+    }
+}
@@ -0,0 +1,60 @@
+package com.valentinpopescu.store.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.valentinpopescu.store.datasource.RecentEvictions;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Objects;
+
+class ProductCaffeineCache extends CaffeineCache {
+
+    private final RecentEvictions recentEvictions;
+
+    ProductCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                         RecentEvictions recentEvictions) {
+        super(name, cache, allowNullValues);
+        this.recentEvictions = recentEvictions;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value instanceof ProductResponse) {
+            getNativeCache().asMap().merge(key, value, ProductCaffeineCache::newer);
+            return;
+        }
+        super.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        recentEvictions.evicted(key);
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        recentEvictions.evicted(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        recentEvictions.cleared();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        recentEvictions.cleared();
+        return super.invalidate();
+    }
+
+    private static Object newer(Object current, Object next) {
+        if (current instanceof ProductResponse cached && next instanceof ProductResponse product
+                && Objects.equals(cached.id(), product.id()) && cached.version() > product.version()) {
+            return current;
+        }
+        return next;
+    }
+}
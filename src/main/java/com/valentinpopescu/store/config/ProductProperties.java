@@ -0,0 +1,116 @@
+package com.valentinpopescu.store.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "store.products")
+public class ProductProperties {
+
+    private final Bulk bulk = new Bulk();
+    private final Cache cache = new Cache();
+    private final ListCache listCache = new ListCache();
+    private final Snapshot snapshot = new Snapshot();
+    private final Search search = new Search();
+    private final PriceIndex priceIndex = new PriceIndex();
+    private final History history = new History();
+    private final Stream stream = new Stream();
+    private final CsvImport csvImport = new CsvImport();
+    private final Metrics metrics = new Metrics();
+    private final Changes changes = new Changes();
+
+    @Getter
+    @Setter
+    public static class Bulk {
+
+        private int batchSize = 50;
+        private int maxItems = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        private long maximumSize = 10_000;
+        private Duration timeToLive;
+    }
+
+    @Getter
+    @Setter
+    public static class ListCache {
+
+        private boolean enabled = true;
+        private boolean gzip = true;
+        private DataSize gzipMinSize = DataSize.ofKilobytes(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Snapshot {
+
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Search {
+
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    public static class PriceIndex {
+
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class History {
+
+        private int queueCapacity = 10_000;
+        private int batchSize = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+
+        private int bufferSize = 256;
+        private int replaySize = 1024;
+        private int maxSubscribers = 200;
+    }
+
+    @Getter
+    @Setter
+    public static class CsvImport {
+
+        private int chunkSize = 1000;
+        private int maxErrors = 1000;
+        private int concurrency = 1;
+        private int queueCapacity = 4;
+        private int retainedJobs = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        private Duration catalogSizeRefresh = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Changes {
+
+        private Duration tombstoneRetention = Duration.ofDays(7);
+        private Duration purgeInterval = Duration.ofHours(1);
+    }
+}
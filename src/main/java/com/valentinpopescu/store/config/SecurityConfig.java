@@ -2,17 +2,27 @@ package com.valentinpopescu.store.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.valentinpopescu.store.exceptions.ApiException;
+import com.valentinpopescu.store.security.CachingAuthenticationManager;
 import com.valentinpopescu.store.security.Roles;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
@@ -30,15 +40,24 @@ public class SecurityConfig {
     public static final String BASE_URL = "http://localhost:8080";
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, ObjectMapper mapper) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ObjectMapper mapper,
+                                                   AuthenticationManager authenticationManager) throws Exception {
         http
+                .authenticationManager(authenticationManager)
                 .cors(Customizer.withDefaults())
                 .csrf(csrf -> csrf.disable())
                 .headers(h -> h.frameOptions(f -> f.sameOrigin()))
+                .sessionManagement(s -> s.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .httpBasic(Customizer.withDefaults())
+                .oauth2ResourceServer(oauth2 -> oauth2
+                        .jwt(Customizer.withDefaults())
+                        .authenticationEntryPoint(restAuthenticationEntryPoint(mapper))
+                )
                 .formLogin(form -> form.disable())
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/h2-console/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole(Roles.ADMIN.name())
                         .requestMatchers("/api/**").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -65,18 +84,43 @@ public class SecurityConfig {
     }
 
     @Bean
-    UserDetailsService users() {
+    PasswordEncoder passwordEncoder() {
+        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    }
+
+    @Bean
+    UserDetailsService users(PasswordEncoder passwordEncoder) {
         return new InMemoryUserDetailsManager(
-                User.withUsername("user").password("{noop}user123").roles(
+                User.withUsername("user").password(passwordEncoder.encode("user123")).roles(
                         Roles.USER.name()
                 ).build(),
-                User.withUsername("admin").password("{noop}admin123").roles(
+                User.withUsername("admin").password(passwordEncoder.encode("admin123")).roles(
                         Roles.USER.name(),
                         Roles.ADMIN.name()
                 ).build()
         );
     }
 
+    @Bean
+    AuthenticationManager authenticationManager(UserDetailsService users, PasswordEncoder passwordEncoder,
+                                                JwtDecoder jwtDecoder,
+                                                JwtAuthenticationConverter jwtAuthenticationConverter,
+                                                StoreSecurityProperties properties) {
+        DaoAuthenticationProvider basicProvider = new DaoAuthenticationProvider(users);
+        basicProvider.setPasswordEncoder(passwordEncoder);
+        JwtAuthenticationProvider tokenProvider = new JwtAuthenticationProvider(jwtDecoder);
+        tokenProvider.setJwtAuthenticationConverter(jwtAuthenticationConverter);
+        ProviderManager providerManager = new ProviderManager(basicProvider, tokenProvider);
+
+        StoreSecurityProperties.AuthCache authCache = properties.getAuthCache();
+        if (!authCache.isEnabled()) {
+            return providerManager;
+        }
+        providerManager.setEraseCredentialsAfterAuthentication(false);
+        return new CachingAuthenticationManager(providerManager, users,
+                authCache.getMaximumSize(), authCache.getTimeToLive());
+    }
+
     private AuthenticationEntryPoint restAuthenticationEntryPoint(ObjectMapper mapper) {
         return (request, response, ex) -> {
             if (response.isCommitted())
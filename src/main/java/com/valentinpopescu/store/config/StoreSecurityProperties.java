@@ -0,0 +1,34 @@
+package com.valentinpopescu.store.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "store.security")
+public class StoreSecurityProperties {
+
+    private final AuthCache authCache = new AuthCache();
+    private final Token token = new Token();
+
+    @Getter
+    @Setter
+    public static class AuthCache {
+
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Token {
+
+        private String secret;
+        private String issuer = "store-management";
+        private Duration timeToLive = Duration.ofMinutes(15);
+    }
+}
@@ -0,0 +1,71 @@
+package com.valentinpopescu.store.config;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+@Configuration
+@Log4j2
+public class TokenConfig {
+
+    public static final String ROLES_CLAIM = "roles";
+    public static final MacAlgorithm ALGORITHM = MacAlgorithm.HS256;
+
+    private static final int MIN_SECRET_BYTES = 32;
+
+    @Bean
+    SecretKey tokenSigningKey(StoreSecurityProperties properties) {
+        String secret = properties.getToken().getSecret();
+        byte[] bytes;
+        if (secret == null || secret.isBlank()) {
+            log.warn("No store.security.token.secret configured, using a random key; tokens are only valid on this instance until restart");
+            bytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = Base64.getDecoder().decode(secret);
+            if (bytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("store.security.token.secret must be at least 256 bits");
+            }
+        }
+        return new SecretKeySpec(bytes, ALGORITHM.getName());
+    }
+
+    @Bean
+    JwtEncoder jwtEncoder(SecretKey tokenSigningKey) {
+        return new NimbusJwtEncoder(new ImmutableSecret<>(tokenSigningKey));
+    }
+
+    @Bean
+    JwtDecoder jwtDecoder(SecretKey tokenSigningKey, StoreSecurityProperties properties) {
+        NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(tokenSigningKey)
+                .macAlgorithm(ALGORITHM)
+                .build();
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(properties.getToken().getIssuer()));
+        return decoder;
+    }
+
+    @Bean
+    JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter authorities = new JwtGrantedAuthoritiesConverter();
+        authorities.setAuthoritiesClaimName(ROLES_CLAIM);
+        authorities.setAuthorityPrefix("ROLE_");
+
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(authorities);
+        return converter;
+    }
+}
@@ -0,0 +1,40 @@
+package com.valentinpopescu.store.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class RecentEvictions {
+
+    private final Duration window;
+    private final Cache<Object, Boolean> evictedKeys;
+    private volatile Instant clearedAt = Instant.EPOCH;
+
+    public RecentEvictions(Duration window) {
+        this.window = window;
+        this.evictedKeys = window.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    public void evicted(Object key) {
+        if (evictedKeys != null) {
+            evictedKeys.put(key, Boolean.TRUE);
+        }
+    }
+
+    public void cleared() {
+        if (evictedKeys != null) {
+            clearedAt = Instant.now();
+        }
+    }
+
+    public boolean isRecent(Object key) {
+        if (evictedKeys == null) {
+            return false;
+        }
+        return evictedKeys.getIfPresent(key) != null || Instant.now().isBefore(clearedAt.plus(window));
+    }
+}
@@ -0,0 +1,227 @@
+package com.valentinpopescu.store.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource
+        implements SmartLifecycle, MeterBinder, AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> PRIMARY_SCOPE = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Cache<String, Boolean> recentWriters;
+    private final Duration healthCheckInterval;
+    private final int healthCheckTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    private ScheduledExecutorService healthChecks;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration readYourWritesWindow,
+                                    Duration healthCheckInterval, Duration healthCheckTimeout) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        this.recentWriters = readYourWritesWindow.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        this.healthCheckInterval = healthCheckInterval;
+        this.healthCheckTimeoutSeconds = (int) Math.max(1, healthCheckTimeout.toSeconds());
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (DataSource dataSource : replicas) {
+            Replica replica = new Replica("replica-" + this.replicas.size(), dataSource);
+            this.replicas.add(replica);
+            targets.put(replica.key, dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriter();
+            return PRIMARY;
+        }
+        if (PRIMARY_SCOPE.get() != null || isRecentWriter()) {
+            return PRIMARY;
+        }
+
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            fallbacks.incrementAndGet();
+            return PRIMARY;
+        }
+        return replica.key;
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_SCOPE.get();
+        PRIMARY_SCOPE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_SCOPE.remove();
+            }
+        }
+    }
+
+    void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy = isValid(replica.dataSource);
+            if (healthy != replica.healthy) {
+                replica.healthy = healthy;
+                if (healthy) {
+                    log.info("Replica is healthy again, routing reads to it: replica={}", replica.key);
+                } else {
+                    log.warn("Replica is unhealthy, routing its reads to the primary: replica={}", replica.key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("datasource.replicas.healthy", replicas, list -> list.stream().filter(r -> r.healthy).count())
+                .description("Read replicas currently passing health checks")
+                .register(registry);
+        FunctionCounter.builder("datasource.routing.fallbacks", fallbacks, AtomicLong::get)
+                .description("Read-only transactions sent to the primary because no replica was healthy")
+                .register(registry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (healthChecks != null) {
+            return;
+        }
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(this::checkReplicas, 0,
+                healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+            healthChecks = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return healthChecks != null;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void rememberWriter() {
+        String caller = caller();
+        if (recentWriters == null || caller == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(caller, Boolean.TRUE);
+            }
+        });
+    }
+
+    private boolean isRecentWriter() {
+        String caller = caller();
+        return recentWriters != null && caller != null && recentWriters.getIfPresent(caller) != null;
+    }
+
+    private boolean isValid(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.isValid(healthCheckTimeoutSeconds);
+        } catch (SQLException ex) {
+            log.debug("Replica health check failed", ex);
+            return false;
+        }
+    }
+
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static final class Replica {
+
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
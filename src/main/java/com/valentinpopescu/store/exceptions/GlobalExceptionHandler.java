@@ -1,6 +1,7 @@
 package com.valentinpopescu.store.exceptions;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolationException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -26,6 +28,18 @@ public class GlobalExceptionHandler {
         return ApiException.of(HttpStatus.BAD_REQUEST, ex.getMessage(), req.getRequestURI());
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiException handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest req) {
+        return ApiException.of(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), req.getRequestURI());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiException handleServiceUnavailable(ServiceUnavailableException ex, HttpServletRequest req) {
+        return ApiException.of(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), req.getRequestURI());
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiException handleDataIntegrityViolation(DataIntegrityViolationException ex, HttpServletRequest req) {
@@ -44,6 +58,23 @@ public class GlobalExceptionHandler {
         return ApiException.of(HttpStatus.BAD_REQUEST, msg, req.getRequestURI());
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiException handleTypeMismatch(MethodArgumentTypeMismatchException ex, HttpServletRequest req) {
+        return ApiException.of(HttpStatus.BAD_REQUEST, "Invalid value for parameter " + ex.getName(), req.getRequestURI());
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiException handleConstraintViolation(ConstraintViolationException ex, HttpServletRequest req) {
+        String msg = ex.getConstraintViolations()
+                .stream()
+                .findFirst()
+                .map(v -> v.getMessage())
+                .orElse("Validation error");
+        return ApiException.of(HttpStatus.BAD_REQUEST, msg, req.getRequestURI());
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ApiException handleGeneric(Exception ex, HttpServletRequest req) {
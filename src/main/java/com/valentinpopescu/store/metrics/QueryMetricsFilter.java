@@ -0,0 +1,49 @@
+package com.valentinpopescu.store.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryStatistics.reset();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                String uri = pattern.toString();
+                DistributionSummary.builder("http.server.requests.queries")
+                        .description("JDBC statements executed per request")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(QueryStatistics.queryCount());
+                Timer.builder("http.server.requests.query.time")
+                        .description("Time spent executing JDBC statements per request")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri)
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(QueryStatistics.queryNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.valentinpopescu.store.metrics;
+
+import org.hibernate.SessionEventListener;
+
+public class QueryStatistics implements SessionEventListener {
+
+    private static final ThreadLocal<Counts> CURRENT = ThreadLocal.withInitial(Counts::new);
+
+    private long statementStart;
+
+    public static void reset() {
+        CURRENT.get().reset();
+    }
+
+    public static long queryCount() {
+        return CURRENT.get().queries;
+    }
+
+    public static long queryNanos() {
+        return CURRENT.get().nanos;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        Counts counts = CURRENT.get();
+        counts.queries++;
+        counts.nanos += System.nanoTime() - statementStart;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        jdbcExecuteStatementEnd();
+    }
+
+    private static class Counts {
+
+        private long queries;
+        private long nanos;
+
+        private void reset() {
+            queries = 0;
+            nanos = 0;
+        }
+    }
+}
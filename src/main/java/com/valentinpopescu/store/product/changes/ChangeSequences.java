@@ -0,0 +1,80 @@
+package com.valentinpopescu.store.product.changes;
+
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+@RequiredArgsConstructor
+public class ChangeSequences {
+
+    private final ProductRepository repository;
+    private final AtomicLong writerIds = new AtomicLong();
+    private final AtomicLong highest = new AtomicLong();
+    private final NavigableSet<Writer> writers = new ConcurrentSkipListSet<>(
+            Comparator.comparingLong(Writer::lowest).thenComparingLong(Writer::id));
+
+    public long next() {
+        register();
+        return seen(repository.nextChangeSequence());
+    }
+
+    public long[] next(int count) {
+        register();
+        long[] sequences = repository.nextChangeSequences(count);
+        if (sequences.length > 0) {
+            seen(sequences[sequences.length - 1]);
+        }
+        return sequences;
+    }
+
+    public <T> T numbering(Supplier<T> statement) {
+        next();
+        T result = statement.get();
+        seen(repository.nextChangeSequence());
+        return result;
+    }
+
+    public long watermark() {
+        if (highest.get() == 0) {
+            seen(repository.findHighestChangeSeq());
+        }
+        long watermark = highest.get();
+        Iterator<Writer> oldest = writers.iterator();
+        if (oldest.hasNext()) {
+            watermark = Math.min(watermark, oldest.next().lowest() - 1);
+        }
+        return watermark;
+    }
+
+    private void register() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Change sequences must be taken inside a transaction");
+        }
+        Writer writer = new Writer(highest.get() + 1, writerIds.incrementAndGet());
+        writers.add(writer);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                writers.remove(writer);
+            }
+        });
+    }
+
+    private long seen(long sequence) {
+        highest.accumulateAndGet(sequence, Math::max);
+        return sequence;
+    }
+
+    private record Writer(long lowest, long id) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.valentinpopescu.store.product.changes;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.repository.ProductTombstoneRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Log4j2
+public class TombstonePurger implements SmartLifecycle {
+
+    private final ProductTombstoneRepository tombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Duration interval;
+
+    private ScheduledExecutorService purges;
+
+    public TombstonePurger(ProductTombstoneRepository tombstoneRepository, PlatformTransactionManager transactionManager,
+                           ProductProperties properties) {
+        this.tombstoneRepository = tombstoneRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = properties.getChanges().getTombstoneRetention();
+        this.interval = properties.getChanges().getPurgeInterval();
+    }
+
+    public int purge() {
+        Integer purged = transactionTemplate.execute(status -> {
+            Long through = tombstoneRepository.findLastChangeSeqDeletedBefore(Instant.now().minus(retention));
+            if (through == null) {
+                return 0;
+            }
+            tombstoneRepository.advancePurgedThrough(through);
+            return tombstoneRepository.deleteThrough(through);
+        });
+        if (purged != null && purged > 0) {
+            log.info("Purged product tombstones: count={}", purged);
+        }
+        return purged == null ? 0 : purged;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (purges != null) {
+            return;
+        }
+        purges = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tombstone-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purges.scheduleWithFixedDelay(this::purgeQuietly, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (purges != null) {
+            purges.shutdownNow();
+            purges = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return purges != null;
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException ex) {
+            log.error("Failed to purge product tombstones", ex);
+        }
+    }
+}
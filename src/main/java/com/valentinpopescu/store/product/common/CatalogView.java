@@ -0,0 +1,195 @@
+package com.valentinpopescu.store.product.common;
+
+import com.valentinpopescu.store.datasource.ReplicaRoutingDataSource;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+@Log4j2
+public abstract class CatalogView<D> implements DisposableBean {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final String name;
+    private final ProductRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object writeMonitor = new Object();
+    private final ExecutorService reloader;
+
+    private D data;
+    private List<ProductChangedEvent> pendingEvents;
+
+    protected CatalogView(String name, ProductRepository repository) {
+        this.name = name;
+        this.repository = repository;
+        this.reloader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name.toLowerCase(Locale.ROOT).replace(' ', '-') + "-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isReady() {
+        return read(Objects::nonNull);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        synchronized (writeMonitor) {
+            if (!startLoading()) {
+                return;
+            }
+        }
+        reload();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (event.type() == ProductChangedEvent.ChangeType.BULK_CHANGED) {
+            reloadInBackground();
+            return;
+        }
+
+        synchronized (writeMonitor) {
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+                return;
+            }
+            if (data == null) {
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                apply(data, event);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            D compacted = compact(data);
+            if (compacted != data) {
+                swap(compacted);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        reloader.shutdownNow();
+    }
+
+    protected <R> R read(Function<D, R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(data);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected abstract boolean isEnabled();
+
+    protected abstract D newData(int expectedSize);
+
+    protected abstract int size(D target);
+
+    protected abstract void apply(D target, ProductChangedEvent event);
+
+    protected D compact(D current) {
+        return current;
+    }
+
+    private void reloadInBackground() {
+        synchronized (writeMonitor) {
+            swap(null);
+            if (!startLoading()) {
+                return;
+            }
+            try {
+                reloader.execute(this::reload);
+            } catch (RejectedExecutionException ex) {
+                pendingEvents = null;
+                log.warn("{} reload rejected; serving from the database", name);
+            }
+        }
+    }
+
+    private boolean startLoading() {
+        if (pendingEvents != null) {
+            pendingEvents.add(ProductChangedEvent.bulkChanged());
+            return false;
+        }
+        pendingEvents = new ArrayList<>();
+        return true;
+    }
+
+    private void reload() {
+        try {
+            while (true) {
+                D loaded = ReplicaRoutingDataSource.onPrimary(this::readCatalog);
+                synchronized (writeMonitor) {
+                    if (pendingEvents.stream().anyMatch(e -> e.type() == ProductChangedEvent.ChangeType.BULK_CHANGED)) {
+                        pendingEvents.clear();
+                        continue;
+                    }
+                    pendingEvents.forEach(event -> apply(loaded, event));
+                    pendingEvents = null;
+                    swap(loaded);
+                }
+                log.info("{} loaded: products={}", name, size(loaded));
+                return;
+            }
+        } catch (RuntimeException ex) {
+            synchronized (writeMonitor) {
+                pendingEvents = null;
+            }
+            log.error("{} load failed; serving from the database until the next reload", name, ex);
+        }
+    }
+
+    private D readCatalog() {
+        D loaded = newData((int) repository.count());
+        long afterId = 0L;
+        List<ProductResponse> page;
+        do {
+            page = repository.findResponsesAfterId(afterId, Limit.of(LOAD_PAGE_SIZE));
+            for (ProductResponse product : page) {
+                apply(loaded, ProductChangedEvent.created(product));
+                afterId = product.id();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        return loaded;
+    }
+
+    private void swap(D next) {
+        lock.writeLock().lock();
+        try {
+            data = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
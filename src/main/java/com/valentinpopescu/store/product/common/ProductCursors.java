@@ -0,0 +1,35 @@
+package com.valentinpopescu.store.product.common;
+
+import com.valentinpopescu.store.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class ProductCursors {
+
+    private static final String ID_PREFIX = "id:";
+
+    private ProductCursors() {
+    }
+
+    public static String encode(Long id) {
+        byte[] raw = (ID_PREFIX + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!raw.startsWith(ID_PREFIX)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return Long.parseLong(raw.substring(ID_PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.valentinpopescu.store.product.common;
+
+import com.valentinpopescu.store.exceptions.PreconditionFailedException;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+
+public class ProductEtags {
+
+    private static final String ANY = "*";
+
+    private ProductEtags() {
+    }
+
+    public static String of(ProductResponse product) {
+        return "\"" + product.id() + "-" + product.version() + "\"";
+    }
+
+    public static Tag parse(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals(ANY)) {
+            return null;
+        }
+
+        String value = ifMatch.trim();
+        int separator = value.indexOf('-');
+        if (value.length() < 5 || !value.startsWith("\"") || !value.endsWith("\"") || separator < 0) {
+            throw new PreconditionFailedException("Product has been modified");
+        }
+        try {
+            return new Tag(
+                    Long.parseLong(value.substring(1, separator)),
+                    Long.parseLong(value.substring(separator + 1, value.length() - 1))
+            );
+        } catch (NumberFormatException ex) {
+            throw new PreconditionFailedException("Product has been modified");
+        }
+    }
+
+    public record Tag(long id, long version) {
+    }
+}
@@ -14,7 +14,8 @@ public class ProductSamples {
                 product.getId(),
                 product.getProductCode(),
                 product.getName(),
-                product.getPrice()
+                product.getPrice(),
+                product.getVersion()
         );
     }
 
@@ -1,30 +1,84 @@
 package com.valentinpopescu.store.product.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.BulkCreateResponse;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeRequest;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeResponse;
+import com.valentinpopescu.store.product.dto.CatalogChanges;
+import com.valentinpopescu.store.product.dto.ImportJobResponse;
 import com.valentinpopescu.store.product.dto.PriceChangeRequest;
+import com.valentinpopescu.store.product.dto.PriceHistoryItem;
 import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductPage;
 import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.importer.ImportSubmission;
+import com.valentinpopescu.store.product.importer.ProductImporter;
+import com.valentinpopescu.store.product.response.CatalogResponseCache;
 import com.valentinpopescu.store.product.service.ProductService;
+import com.valentinpopescu.store.product.stream.CatalogChangeStream;
+import com.valentinpopescu.store.product.version.CatalogVersions;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
 
 @SecurityRequirement(name = "basicAuth")
+@SecurityRequirement(name = "bearerAuth")
 @RestController
 @Validated
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
 public class ProductController {
 
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    private static final int MAX_SEARCH_QUERY_LENGTH = 100;
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+    private static final String TEXT_CSV = "text/csv";
+
     private final ProductService service;
+    private final ObjectMapper mapper;
+    private final CatalogVersions versions;
+    private final CatalogChangeStream changes;
+    private final ProductImporter importer;
+    private final CatalogResponseCache catalogResponses;
+    private final ContentNegotiationManager contentNegotiation;
 
     @Operation(summary = "Add product", description = "Add a product and return it")
     @ApiResponse(responseCode = "201", description = "Product created")
@@ -35,30 +89,198 @@ public class ProductController {
         return service.add(request);
     }
 
+    @Operation(summary = "Add products in bulk", description = "Add many products at once and report the outcome of each one")
+    @ApiResponse(responseCode = "200", description = "Products processed")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    @PostMapping("/bulk")
+    public BulkCreateResponse addAll(@RequestBody @NotEmpty List<ProductCreateRequest> requests) {
+        return service.addAll(requests);
+    }
+
+    @Operation(summary = "Import products from a CSV file", description = "Upload a CSV file with productCode, name and price columns, up to the multipart limit (spring.servlet.multipart.max-file-size, 100MB); the container spools the upload before the import starts. Larger files must be sent as a text/csv body. Responds 202 with the queued job as soon as it is accepted; poll the Location for progress")
+    @ApiResponse(responseCode = "202", description = "Import queued")
+    @ApiResponse(responseCode = "503", description = "Too many imports in progress")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> importFile(@RequestParam("file") MultipartFile file) {
+        try {
+            return accepted(importer.submit(file.getInputStream()));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Operation(summary = "Import products from a CSV body", description = "Stream a CSV body with productCode, name and price columns, of any size; rows are validated and upserted by a bounded import worker while the body is read. Responds 202 with the queued job as soon as it is accepted and keeps reading the body afterwards; poll the Location for progress")
+    @ApiResponse(responseCode = "202", description = "Import queued")
+    @ApiResponse(responseCode = "503", description = "Too many imports in progress")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public ResponseEntity<ResponseBodyEmitter> importBody(InputStream csv) {
+        return accepted(importer.submit(csv));
+    }
+
+    @Operation(summary = "Find import job", description = "Report the progress and row errors of a CSV import")
+    @ApiResponse(responseCode = "200", description = "Import job found")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    @GetMapping("/import/{jobId}")
+    public ImportJobResponse findImport(@PathVariable String jobId) {
+        return importer.find(jobId);
+    }
+
     @Operation(summary = "Find product by product code", description = "Find a product by product code and return it")
     @ApiResponse(responseCode = "200", description = "Product found")
+    @ApiResponse(responseCode = "304", description = "Product not modified")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
     @GetMapping("/{productCode}")
-    public ProductResponse find(@PathVariable @NotBlank String productCode) {
-        return service.findByProductCode(productCode);
+    public ResponseEntity<ProductResponse> find(@PathVariable @NotBlank String productCode, WebRequest request) {
+        long version = versions.currentVersion();
+        String etag = versions.productEtag(productCode);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+
+        ProductResponse product = service.findByProductCode(productCode);
+        return ResponseEntity.ok()
+                .eTag(versions.recordProductEtag(product, version))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(product);
     }
 
     @Operation(summary = "Find products", description = "List all products")
-    @ApiResponse(responseCode = "200", description = "Products fetch successful")
+    @ApiResponse(responseCode = "200", description = "Products fetch successful",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductResponse.class))))
+    @ApiResponse(responseCode = "304", description = "Products not modified")
     @PreAuthorize("hasAnyRole('USER','ADMIN')")
     @GetMapping
-    public List<ProductResponse> findAll() {
-        return service.findAll();
+    public ResponseEntity<byte[]> findAll(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        if (request.checkNotModified(versions.catalogEtag())) {
+            return null;
+        }
+
+        MediaType contentType = catalogResponses.negotiate(contentNegotiation.resolveMediaTypes(request));
+        CatalogResponseCache.Body body = catalogResponses.get(contentType,
+                CatalogResponseCache.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(versions.catalogEtag(body.version()))
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(contentType);
+        if (body.gzipped()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body.bytes());
+    }
+
+    @Operation(summary = "Find products page", description = "List products ordered by id, starting after the given cursor")
+    @ApiResponse(responseCode = "200", description = "Products page fetch successful")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping(params = "size")
+    public ProductPage findPage(
+            @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) int size,
+            @RequestParam(required = false) String after) {
+        return service.findPage(size, after);
+    }
+
+    @Operation(summary = "Search products", description = "Find products whose name or product code matches every term of the query, best matches first")
+    @ApiResponse(responseCode = "200", description = "Products search successful")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/search")
+    public List<ProductResponse> search(
+            @RequestParam @NotBlank @Size(max = MAX_SEARCH_QUERY_LENGTH) String q,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_SEARCH_LIMIT) int limit) {
+        return service.search(q, limit);
+    }
+
+    @Operation(summary = "Find products by price", description = "List products whose price is within the given range, ordered by price")
+    @ApiResponse(responseCode = "200", description = "Products fetch successful")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/by-price")
+    public List<ProductResponse> findByPriceRange(
+            @RequestParam(required = false) @PositiveOrZero BigDecimal minPrice,
+            @RequestParam(required = false) @PositiveOrZero BigDecimal maxPrice,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        return service.findByPriceRange(minPrice, maxPrice, direction, limit);
+    }
+
+    @Operation(summary = "Find catalog changes", description = "List products created, repriced or deleted after the given change sequence number, oldest first")
+    @ApiResponse(responseCode = "200", description = "Changes fetch successful")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/changes")
+    public CatalogChanges findChanges(
+            @RequestParam(defaultValue = "0") @PositiveOrZero long since,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        return service.findChanges(since, limit);
+    }
+
+    @Operation(summary = "Stream catalog changes", description = "Push product creates, price changes and deletes as server-sent events; send Last-Event-ID to resume after the given event; an id from another server process gets a reset event")
+    @ApiResponse(responseCode = "200", description = "Change stream opened")
+    @ApiResponse(responseCode = "503", description = "Too many open change streams")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter();
+        changes.subscribe(emitter, lastEventId);
+        return emitter;
+    }
+
+    @Operation(summary = "Export products", description = "Stream all products as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Products export started")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+                int[] written = { 0 };
+                service.exportAll(product -> {
+                    try {
+                        generator.writeObject(product);
+                        generator.writeRaw('\n');
+                        if (written[0]++ % EXPORT_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Find price history", description = "List the recorded price changes of a product, newest first")
+    @ApiResponse(responseCode = "200", description = "Price history fetch successful")
+    @PreAuthorize("hasAnyRole('USER','ADMIN')")
+    @GetMapping("/{productCode}/price-history")
+    public List<PriceHistoryItem> findPriceHistory(
+            @PathVariable @NotBlank String productCode,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(MAX_PAGE_SIZE) int limit) {
+        return service.findPriceHistory(productCode, limit);
     }
 
     @Operation(summary = "Change price", description = "Find product by product code, change its price and return it")
     @ApiResponse(responseCode = "200", description = "Product's price changed")
+    @ApiResponse(responseCode = "412", description = "Product does not match If-Match")
     @PreAuthorize("hasAnyRole('ADMIN')")
     @PatchMapping("/{productCode}/price")
-    public ProductResponse changePrice(
+    public ResponseEntity<ProductResponse> changePrice(
             @PathVariable @NotBlank String productCode,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid PriceChangeRequest request) {
-        return service.changePrice(productCode, request);
+        ProductResponse product = service.changePrice(productCode, request, ProductEtags.parse(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(ProductEtags.of(product))
+                .body(product);
+    }
+
+    @Operation(summary = "Change prices in bulk", description = "Adjust the price of the given products, or of the products matching a filter, by an absolute amount or a percentage")
+    @ApiResponse(responseCode = "200", description = "Prices changed")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    @PatchMapping("/price")
+    public BulkPriceChangeResponse changePrices(@RequestBody @Valid BulkPriceChangeRequest request) {
+        return service.changePrices(request);
     }
 
     @Operation(summary = "Delete product", description = "Find product by product code and delete it")
@@ -69,4 +291,17 @@ public class ProductController {
     public void delete(@PathVariable @NotBlank String productCode) {
         service.deleteByProductCode(productCode);
     }
+
+    private static ResponseEntity<ResponseBodyEmitter> accepted(ImportSubmission submission) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        try {
+            emitter.send(submission.job(), MediaType.APPLICATION_JSON);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        submission.finished().whenComplete((job, ex) -> emitter.complete());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/products/import/" + submission.job().id()))
+                .body(emitter);
+    }
 }
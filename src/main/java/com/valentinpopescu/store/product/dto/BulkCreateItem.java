@@ -0,0 +1,19 @@
+package com.valentinpopescu.store.product.dto;
+
+public record BulkCreateItem(
+
+        int index,
+        String productCode,
+        boolean created,
+        ProductResponse product,
+        String error
+) {
+
+    public static BulkCreateItem created(int index, ProductResponse product) {
+        return new BulkCreateItem(index, product.productCode(), true, product, null);
+    }
+
+    public static BulkCreateItem failed(int index, String productCode, String error) {
+        return new BulkCreateItem(index, productCode, false, null, error);
+    }
+}
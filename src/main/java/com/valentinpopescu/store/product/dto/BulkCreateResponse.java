@@ -0,0 +1,12 @@
+package com.valentinpopescu.store.product.dto;
+
+import java.util.List;
+
+public record BulkCreateResponse(
+
+        int created,
+        int failed,
+        List<BulkCreateItem> items
+) {
+
+}
@@ -0,0 +1,29 @@
+package com.valentinpopescu.store.product.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record BulkPriceChangeRequest (
+
+        List<@NotBlank String> productCodes,
+
+        String codePrefix,
+
+        @DecimalMin(value = "0.00")
+        BigDecimal minPrice,
+
+        @DecimalMin(value = "0.00")
+        BigDecimal maxPrice,
+
+        @NotNull
+        PriceAdjustmentType type,
+
+        @NotNull
+        BigDecimal amount
+) {
+
+}
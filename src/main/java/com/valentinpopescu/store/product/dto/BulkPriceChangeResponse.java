@@ -0,0 +1,8 @@
+package com.valentinpopescu.store.product.dto;
+
+public record BulkPriceChangeResponse(
+
+        int updated
+) {
+
+}
@@ -0,0 +1,25 @@
+package com.valentinpopescu.store.product.dto;
+
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+
+import java.math.BigDecimal;
+
+public record CatalogChange(
+
+        long sequence,
+        ProductChangedEvent.ChangeType type,
+        String productCode,
+        ProductResponse product
+) {
+
+    public CatalogChange(long sequence, Long id, String productCode, String name, BigDecimal price, Long version) {
+        this(sequence,
+                version == 0 ? ProductChangedEvent.ChangeType.CREATED : ProductChangedEvent.ChangeType.PRICE_CHANGED,
+                productCode,
+                new ProductResponse(id, productCode, name, price, version));
+    }
+
+    public static CatalogChange of(long sequence, ProductChangedEvent event) {
+        return new CatalogChange(sequence, event.type(), event.productCode(), event.product());
+    }
+}
@@ -0,0 +1,13 @@
+package com.valentinpopescu.store.product.dto;
+
+import java.util.List;
+
+public record CatalogChanges(
+
+        List<CatalogChange> changes,
+        long nextSince,
+        boolean hasMore,
+        boolean resync
+) {
+
+}
@@ -0,0 +1,21 @@
+package com.valentinpopescu.store.product.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record ImportJobResponse(
+
+        String id,
+        ImportStatus status,
+        long processedRows,
+        long importedRows,
+        long failedRows,
+        long supersededRows,
+        List<ImportRowError> errors,
+        List<ImportRowError> warnings,
+        String message,
+        Instant submittedAt,
+        Instant finishedAt
+) {
+
+}
@@ -0,0 +1,10 @@
+package com.valentinpopescu.store.product.dto;
+
+public record ImportRowError(
+
+        long row,
+        String productCode,
+        String message
+) {
+
+}
@@ -0,0 +1,9 @@
+package com.valentinpopescu.store.product.dto;
+
+public enum ImportStatus {
+
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
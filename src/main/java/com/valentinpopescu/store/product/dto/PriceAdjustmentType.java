@@ -0,0 +1,7 @@
+package com.valentinpopescu.store.product.dto;
+
+public enum PriceAdjustmentType {
+
+    ABSOLUTE,
+    PERCENTAGE
+}
@@ -0,0 +1,12 @@
+package com.valentinpopescu.store.product.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record PriceHistoryItem(
+
+        BigDecimal price,
+        Long version,
+        Instant changedAt
+) {
+}
@@ -0,0 +1,11 @@
+package com.valentinpopescu.store.product.dto;
+
+import java.util.List;
+
+public record ProductPage(
+
+        List<ProductResponse> items,
+        String nextCursor
+) {
+
+}
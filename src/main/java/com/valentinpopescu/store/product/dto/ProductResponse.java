@@ -7,7 +7,8 @@ public record ProductResponse(
         Long id,
         String productCode,
         String name,
-        BigDecimal price
+        BigDecimal price,
+        Long version
 ) {
 
 }
@@ -0,0 +1,12 @@
+package com.valentinpopescu.store.product.event;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+
+import java.util.List;
+
+public record PricesChangedEvent(
+
+        List<ProductResponse> products
+) {
+
+}
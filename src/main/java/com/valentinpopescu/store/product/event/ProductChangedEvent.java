@@ -0,0 +1,34 @@
+package com.valentinpopescu.store.product.event;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+
+public record ProductChangedEvent(
+
+        ChangeType type,
+        String productCode,
+        ProductResponse product
+) {
+
+    public enum ChangeType {
+        CREATED,
+        PRICE_CHANGED,
+        DELETED,
+        BULK_CHANGED
+    }
+
+    public static ProductChangedEvent created(ProductResponse product) {
+        return new ProductChangedEvent(ChangeType.CREATED, product.productCode(), product);
+    }
+
+    public static ProductChangedEvent priceChanged(ProductResponse product) {
+        return new ProductChangedEvent(ChangeType.PRICE_CHANGED, product.productCode(), product);
+    }
+
+    public static ProductChangedEvent deleted(String productCode) {
+        return new ProductChangedEvent(ChangeType.DELETED, productCode, null);
+    }
+
+    public static ProductChangedEvent bulkChanged() {
+        return new ProductChangedEvent(ChangeType.BULK_CHANGED, null, null);
+    }
+}
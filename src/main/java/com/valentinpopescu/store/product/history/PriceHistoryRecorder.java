@@ -0,0 +1,179 @@
+package com.valentinpopescu.store.product.history;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.PricesChangedEvent;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Log4j2
+public class PriceHistoryRecorder implements SmartLifecycle {
+
+    private static final String INSERT = """
+            insert into price_history (product_code, price, product_version, changed_at)
+            values (?, ?, ?, ?)
+            """;
+    private static final long POLL_INTERVAL_MILLIS = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final BlockingQueue<PendingEntry> queue;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public PriceHistoryRecorder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                ProductProperties properties, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = properties.getHistory().getBatchSize();
+        this.queue = new ArrayBlockingQueue<>(properties.getHistory().getQueueCapacity());
+        this.written = counter(registry, "written");
+        this.dropped = counter(registry, "dropped");
+        this.failed = counter(registry, "failed");
+        Gauge.builder("products.price_history.queued", queue, BlockingQueue::size)
+                .description("Price changes waiting to be written to the price history")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() != ProductChangedEvent.ChangeType.PRICE_CHANGED) {
+            return;
+        }
+
+        enqueue(event.product(), Instant.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPricesChanged(PricesChangedEvent event) {
+        Instant changedAt = Instant.now();
+        event.products().forEach(product -> enqueue(product, changedAt));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainWhileRunning, "price-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = writer;
+            writer = null;
+        }
+
+        try {
+            current.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    void flush() {
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void drainWhileRunning() {
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingEntry first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingEntry> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (ps, entry) -> {
+                        ps.setString(1, entry.productCode());
+                        ps.setBigDecimal(2, entry.price());
+                        ps.setObject(3, entry.version());
+                        ps.setTimestamp(4, Timestamp.from(entry.changedAt()));
+                    }));
+            written.increment(batch.size());
+        } catch (RuntimeException ex) {
+            failed.increment(batch.size());
+            log.error("Failed to write price history: entries={}", batch.size(), ex);
+        }
+    }
+
+    private void enqueue(ProductResponse product, Instant changedAt) {
+        PendingEntry entry = new PendingEntry(product.productCode(), product.price(), product.version(), changedAt);
+        if (!queue.offer(entry)) {
+            dropped.increment();
+            log.warn("Price history queue is full, dropped price change: productCode={}", product.productCode());
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("products.price_history")
+                .description("Price changes written to, dropped from or failed to reach the price history")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record PendingEntry(String productCode, BigDecimal price, Long version, Instant changedAt) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.valentinpopescu.store.product.importer;
+
+import com.valentinpopescu.store.product.dto.ImportJobResponse;
+import com.valentinpopescu.store.product.dto.ImportRowError;
+import com.valentinpopescu.store.product.dto.ImportStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class ImportJob {
+
+    private final String id;
+    private final int maxErrors;
+    private final Instant submittedAt = Instant.now();
+    private final AtomicLong processedRows = new AtomicLong();
+    private final AtomicLong importedRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong supersededRows = new AtomicLong();
+    private final List<ImportRowError> errors = new ArrayList<>();
+    private final List<ImportRowError> warnings = new ArrayList<>();
+    private final CompletableFuture<ImportJobResponse> finished = new CompletableFuture<>();
+
+    private volatile ImportStatus status = ImportStatus.QUEUED;
+    private volatile String message;
+    private volatile Instant finishedAt;
+
+    ImportJob(String id, int maxErrors) {
+        this.id = id;
+        this.maxErrors = maxErrors;
+    }
+
+    String id() {
+        return id;
+    }
+
+    CompletableFuture<ImportJobResponse> finished() {
+        return finished;
+    }
+
+    void start() {
+        status = ImportStatus.RUNNING;
+    }
+
+    void rowRead() {
+        processedRows.incrementAndGet();
+    }
+
+    void rowsImported(int count) {
+        importedRows.addAndGet(count);
+    }
+
+    boolean hasImportedRows() {
+        return importedRows.get() > 0;
+    }
+
+    void rowFailed(long row, String productCode, String error) {
+        failedRows.incrementAndGet();
+        report(errors, new ImportRowError(row, productCode, error));
+    }
+
+    void rowSuperseded(long row, String productCode, long byRow) {
+        supersededRows.incrementAndGet();
+        report(warnings, new ImportRowError(row, productCode, "superseded by row " + byRow));
+    }
+
+    void complete() {
+        finish(ImportStatus.COMPLETED, null);
+    }
+
+    void fail(String reason) {
+        finish(ImportStatus.FAILED, reason);
+    }
+
+    ImportJobResponse toResponse() {
+        return new ImportJobResponse(id, status, processedRows.get(), importedRows.get(), failedRows.get(),
+                supersededRows.get(), reported(errors), reported(warnings), message, submittedAt, finishedAt);
+    }
+
+    private void report(List<ImportRowError> rows, ImportRowError row) {
+        synchronized (rows) {
+            if (rows.size() < maxErrors) {
+                rows.add(row);
+            }
+        }
+    }
+
+    void release() {
+        finished.complete(toResponse());
+    }
+
+    private synchronized void finish(ImportStatus outcome, String reason) {
+        if (finishedAt != null) {
+            return;
+        }
+        message = reason;
+        finishedAt = Instant.now();
+        status = outcome;
+    }
+
+    private static List<ImportRowError> reported(List<ImportRowError> rows) {
+        synchronized (rows) {
+            return List.copyOf(rows);
+        }
+    }
+}
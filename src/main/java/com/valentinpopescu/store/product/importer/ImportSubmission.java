@@ -0,0 +1,13 @@
+package com.valentinpopescu.store.product.importer;
+
+import com.valentinpopescu.store.product.dto.ImportJobResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+public record ImportSubmission(
+
+        ImportJobResponse job,
+        CompletableFuture<ImportJobResponse> finished
+) {
+
+}
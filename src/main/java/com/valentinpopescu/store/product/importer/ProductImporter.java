@@ -0,0 +1,262 @@
+package com.valentinpopescu.store.product.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.valentinpopescu.store.config.CacheConfig;
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.exceptions.BadRequestException;
+import com.valentinpopescu.store.exceptions.NotFoundException;
+import com.valentinpopescu.store.exceptions.ServiceUnavailableException;
+import com.valentinpopescu.store.product.changes.ChangeSequences;
+import com.valentinpopescu.store.product.dto.ImportJobResponse;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.PricesChangedEvent;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.metrics.ProductMetrics;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Component
+@Log4j2
+public class ProductImporter implements DisposableBean {
+
+    private static final CsvMapper CSV = new CsvMapper();
+    private static final CsvSchema HEADER = CsvSchema.emptySchema().withHeader();
+    private static final List<String> COLUMNS = List.of("productCode", "name", "price");
+
+    private final ProductRepository repository;
+    private final ChangeSequences changeSequences;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher events;
+    private final CacheManager cacheManager;
+    private final ProductMetrics metrics;
+    private final int chunkSize;
+    private final int maxErrors;
+    private final int retainedJobs;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<>();
+
+    public ProductImporter(ProductRepository repository, ChangeSequences changeSequences,
+                           PlatformTransactionManager transactionManager, Validator validator,
+                           ApplicationEventPublisher events, CacheManager cacheManager, ProductMetrics metrics,
+                           ProductProperties properties) {
+        ProductProperties.CsvImport csvImport = properties.getCsvImport();
+        this.repository = repository;
+        this.changeSequences = changeSequences;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.events = events;
+        this.cacheManager = cacheManager;
+        this.metrics = metrics;
+        this.chunkSize = csvImport.getChunkSize();
+        this.maxErrors = csvImport.getMaxErrors();
+        this.retainedJobs = csvImport.getRetainedJobs();
+        this.permits = new Semaphore(csvImport.getConcurrency() + csvImport.getQueueCapacity());
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(csvImport.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "product-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ImportSubmission submit(InputStream csv) {
+        if (!permits.tryAcquire()) {
+            throw new ServiceUnavailableException("Too many catalog imports in progress");
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), maxErrors);
+        ImportJobResponse queued = job.toResponse();
+        jobs.put(job.id(), job);
+        try {
+            executor.execute(() -> run(job, csv));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.id());
+            permits.release();
+            throw new ServiceUnavailableException("Catalog import is not available");
+        }
+        log.info("Catalog import submitted: job={}", job.id());
+        return new ImportSubmission(queued, job.finished());
+    }
+
+    public ImportJobResponse find(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new NotFoundException("Import job not found");
+        }
+        return job.toResponse();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        jobs.values().forEach(job -> {
+            job.fail("Import was interrupted by shutdown");
+            job.release();
+        });
+    }
+
+    private void run(ImportJob job, InputStream csv) {
+        job.start();
+        try (Reader reader = new InputStreamReader(csv, StandardCharsets.UTF_8);
+             MappingIterator<Map<String, String>> rows = CSV.readerForMapOf(String.class)
+                     .with(HEADER)
+                     .readValues(reader)) {
+            Map<String, Row> chunk = new LinkedHashMap<>();
+            long row = 0;
+            while (rows.hasNextValue()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    job.fail("Import was interrupted after " + row + " rows");
+                    return;
+                }
+                if (row == 0) {
+                    requireColumns((CsvSchema) rows.getParserSchema());
+                }
+
+                Map<String, String> values = rows.nextValue();
+                row++;
+                job.rowRead();
+                ProductCreateRequest request = parse(job, row, values);
+                if (request == null) {
+                    continue;
+                }
+
+                Row superseded = chunk.put(request.productCode(), new Row(row, request));
+                if (superseded != null) {
+                    job.rowSuperseded(superseded.number(), request.productCode(), row);
+                }
+                if (chunk.size() == chunkSize) {
+                    write(job, chunk);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                write(job, chunk);
+            }
+            job.complete();
+            log.info("Catalog import completed: job={}, rows={}", job.id(), row);
+        } catch (BadRequestException ex) {
+            job.fail(ex.getMessage());
+        } catch (JsonProcessingException ex) {
+            job.fail("Invalid CSV: " + ex.getOriginalMessage());
+        } catch (IOException | RuntimeException ex) {
+            log.error("Catalog import failed: job={}", job.id(), ex);
+            job.fail("Import failed, rows imported before the failure were kept");
+        } finally {
+            try {
+                if (job.hasImportedRows()) {
+                    events.publishEvent(ProductChangedEvent.bulkChanged());
+                }
+            } finally {
+                permits.release();
+                retire(job);
+                job.release();
+            }
+        }
+    }
+
+    private ProductCreateRequest parse(ImportJob job, long row, Map<String, String> values) {
+        String productCode = trimToNull(values.get("productCode"));
+        String price = trimToNull(values.get("price"));
+        ProductCreateRequest request;
+        try {
+            request = new ProductCreateRequest(productCode, trimToNull(values.get("name")),
+                    price == null ? null : new BigDecimal(price));
+        } catch (NumberFormatException ex) {
+            job.rowFailed(row, productCode, "price: must be a number");
+            return null;
+        }
+
+        List<ConstraintViolation<ProductCreateRequest>> violations = new ArrayList<>(validator.validate(request));
+        if (!violations.isEmpty()) {
+            job.rowFailed(row, productCode, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        return request;
+    }
+
+    private void write(ImportJob job, Map<String, Row> chunk) {
+        List<ProductCreateRequest> products = chunk.values().stream().map(Row::request).toList();
+        List<ProductResponse> repriced = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status ->
+                changeSequences.numbering(() -> repository.upsertAll(products, repriced::add)));
+        chunk.clear();
+        job.rowsImported(products.size());
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache != null) {
+            products.forEach(product -> cache.evict(product.productCode()));
+        }
+        if (!repriced.isEmpty()) {
+            events.publishEvent(new PricesChangedEvent(repriced));
+        }
+        metrics.imported(products.size());
+    }
+
+    private void retire(ImportJob job) {
+        finishedJobs.add(job.id());
+        while (finishedJobs.size() > retainedJobs) {
+            String oldest = finishedJobs.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    private static void requireColumns(CsvSchema schema) {
+        for (String column : COLUMNS) {
+            if (schema.column(column) == null) {
+                throw new BadRequestException("Missing CSV column: " + column);
+            }
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private record Row(long number, ProductCreateRequest request) {
+    }
+}
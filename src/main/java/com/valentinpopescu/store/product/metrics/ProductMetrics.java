@@ -0,0 +1,85 @@
+package com.valentinpopescu.store.product.metrics;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import com.valentinpopescu.store.product.snapshot.CatalogSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductMetrics {
+
+    private final Counter created;
+    private final Counter repriced;
+    private final Counter deleted;
+    private final Counter imported;
+    private final Counter notFound;
+    private final ProductRepository repository;
+    private final CatalogSnapshot snapshot;
+    private final long catalogSizeRefreshNanos;
+
+    private volatile CatalogCount catalogCount;
+
+    public ProductMetrics(MeterRegistry registry, ProductRepository repository, CatalogSnapshot snapshot,
+                          ProductProperties properties) {
+        this.repository = repository;
+        this.snapshot = snapshot;
+        this.catalogSizeRefreshNanos = properties.getMetrics().getCatalogSizeRefresh().toNanos();
+        created = counter(registry, "created");
+        repriced = counter(registry, "repriced");
+        deleted = counter(registry, "deleted");
+        imported = counter(registry, "imported");
+        notFound = Counter.builder("products.lookups.not_found")
+                .description("Product lookups that did not find a product")
+                .register(registry);
+        Gauge.builder("products.catalog.size", this, ProductMetrics::catalogSize)
+                .description("Products in the catalog")
+                .register(registry);
+    }
+
+    public void created(int count) {
+        created.increment(count);
+    }
+
+    public void repriced(int count) {
+        repriced.increment(count);
+    }
+
+    public void deleted() {
+        deleted.increment();
+    }
+
+    public void imported(int count) {
+        imported.increment(count);
+    }
+
+    public void notFound() {
+        notFound.increment();
+    }
+
+    private double catalogSize() {
+        if (snapshot.isReady()) {
+            return snapshot.size();
+        }
+
+        long now = System.nanoTime();
+        CatalogCount count = catalogCount;
+        if (count == null || now - count.countedAt() >= catalogSizeRefreshNanos) {
+            count = new CatalogCount(repository.count(), now);
+            catalogCount = count;
+        }
+        return count.size();
+    }
+
+    private static Counter counter(MeterRegistry registry, String change) {
+        return Counter.builder("products.changes")
+                .description("Products created, repriced, deleted or imported")
+                .tag("change", change)
+                .register(registry);
+    }
+
+    private record CatalogCount(long size, long countedAt) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.valentinpopescu.store.product.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Entity
+@Table(
+        name = "price_history",
+        indexes = @Index(name = "idx_price_history_product_code", columnList = "productCode, id")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class PriceHistoryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String productCode;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal price;
+
+    private Long productVersion;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+}
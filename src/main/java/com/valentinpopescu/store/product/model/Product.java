@@ -11,18 +11,29 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Entity
-@Table
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_product_code", columnNames = "productCode"),
+        indexes = {
+                @Index(name = "idx_product_price", columnList = "price, id"),
+                @Index(name = "idx_product_change_seq", columnList = "changeSeq")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
 public class Product {
 
+    public static final String ID_SEQUENCE = "product_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    public static final String CHANGE_SEQUENCE = "product_change_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String productCode;
 
     @NotBlank
@@ -34,6 +45,11 @@ public class Product {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal price;
 
+    @Version
+    private Long version;
+
+    private Long changeSeq;
+
     public Product(String productCode, String name, BigDecimal price) {
         this.productCode = productCode;
         this.name = name;
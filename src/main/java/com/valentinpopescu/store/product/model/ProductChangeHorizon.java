@@ -0,0 +1,21 @@
+package com.valentinpopescu.store.product.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductChangeHorizon {
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long purgedThrough;
+}
@@ -0,0 +1,35 @@
+package com.valentinpopescu.store.product.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(indexes = @Index(name = "idx_product_tombstone_change_seq", columnList = "changeSeq"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String productCode;
+
+    @Column(nullable = false)
+    private Long changeSeq;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+
+    public ProductTombstone(String productCode, Long changeSeq, Instant deletedAt) {
+        this.productCode = productCode;
+        this.changeSeq = changeSeq;
+        this.deletedAt = deletedAt;
+    }
+}
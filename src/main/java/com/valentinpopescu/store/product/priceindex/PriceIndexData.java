@@ -0,0 +1,69 @@
+package com.valentinpopescu.store.product.priceindex;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+class PriceIndexData {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final NavigableMap<PriceKey, ProductResponse> byPrice = new TreeMap<>();
+    private final Map<String, PriceKey> keysByCode = new HashMap<>();
+
+    int size() {
+        return keysByCode.size();
+    }
+
+    void put(ProductResponse product) {
+        remove(product.productCode());
+        PriceKey key = new PriceKey(product.price(), product.id());
+        byPrice.put(key, product);
+        keysByCode.put(product.productCode(), key);
+    }
+
+    boolean remove(String productCode) {
+        PriceKey key = keysByCode.remove(productCode);
+        if (key == null) {
+            return false;
+        }
+        byPrice.remove(key);
+        return true;
+    }
+
+    List<ProductResponse> find(BigDecimal minPrice, BigDecimal maxPrice, boolean descending, int limit) {
+        if (minPrice.compareTo(maxPrice) > 0) {
+            return List.of();
+        }
+
+        NavigableMap<PriceKey, ProductResponse> range = byPrice.subMap(
+                new PriceKey(minPrice, Long.MIN_VALUE), true,
+                new PriceKey(maxPrice, Long.MAX_VALUE), true);
+        if (descending) {
+            range = range.descendingMap();
+        }
+
+        List<ProductResponse> products = new ArrayList<>(Math.min(limit, INITIAL_CAPACITY));
+        Iterator<ProductResponse> matches = range.values().iterator();
+        while (products.size() < limit && matches.hasNext()) {
+            products.add(matches.next());
+        }
+        return products;
+    }
+
+    private record PriceKey(BigDecimal price, long id) implements Comparable<PriceKey> {
+
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = price.compareTo(other.price);
+            return byPrice != 0 ? byPrice : Long.compare(id, other.id);
+        }
+    }
+}
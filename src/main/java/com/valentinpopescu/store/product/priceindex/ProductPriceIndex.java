@@ -0,0 +1,49 @@
+package com.valentinpopescu.store.product.priceindex;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.common.CatalogView;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Component
+public class ProductPriceIndex extends CatalogView<PriceIndexData> {
+
+    private final ProductProperties properties;
+
+    public ProductPriceIndex(ProductRepository repository, ProductProperties properties) {
+        super("Product price index", repository);
+        this.properties = properties;
+    }
+
+    public List<ProductResponse> find(BigDecimal minPrice, BigDecimal maxPrice, boolean descending, int limit) {
+        return read(data -> data.find(minPrice, maxPrice, descending, limit));
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return properties.getPriceIndex().isEnabled();
+    }
+
+    @Override
+    protected PriceIndexData newData(int expectedSize) {
+        return new PriceIndexData();
+    }
+
+    @Override
+    protected int size(PriceIndexData target) {
+        return target.size();
+    }
+
+    @Override
+    protected void apply(PriceIndexData target, ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, PRICE_CHANGED -> target.put(event.product());
+            case DELETED -> target.remove(event.productCode());
+        }
+    }
+}
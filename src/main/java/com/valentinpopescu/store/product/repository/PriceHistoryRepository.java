@@ -0,0 +1,21 @@
+package com.valentinpopescu.store.product.repository;
+
+import com.valentinpopescu.store.product.dto.PriceHistoryItem;
+import com.valentinpopescu.store.product.model.PriceHistoryEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface PriceHistoryRepository extends JpaRepository<PriceHistoryEntry, Long> {
+
+    @Query("""
+            select new com.valentinpopescu.store.product.dto.PriceHistoryItem(h.price, h.productVersion, h.changedAt)
+            from PriceHistoryEntry h
+            where h.productCode = :productCode
+            order by h.id desc
+            """)
+    List<PriceHistoryItem> findByProductCode(@Param("productCode") String productCode, Limit limit);
+}
@@ -1,12 +1,88 @@
 package com.valentinpopescu.store.product.repository;
 
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.dto.ProductResponse;
 import com.valentinpopescu.store.product.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductWriteRepository, ProductSearchRepository {
 
     Optional<Product> findByProductCode(String productCode);
     boolean existsByProductCode(String productCode);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new com.valentinpopescu.store.product.dto.ProductResponse(p.id, p.productCode, p.name, p.price, p.version)
+            from Product p where p.productCode = :productCode
+            """)
+    Optional<ProductResponse> findResponseByProductCode(@Param("productCode") String productCode);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new com.valentinpopescu.store.product.dto.ProductResponse(p.id, p.productCode, p.name, p.price, p.version)
+            from Product p order by p.id
+            """)
+    List<ProductResponse> findAllResponses();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new com.valentinpopescu.store.product.dto.ProductResponse(p.id, p.productCode, p.name, p.price, p.version)
+            from Product p where p.id > :afterId order by p.id
+            """)
+    List<ProductResponse> findResponsesAfterId(@Param("afterId") Long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new com.valentinpopescu.store.product.dto.ProductResponse(p.id, p.productCode, p.name, p.price, p.version)
+            from Product p where p.price between :minPrice and :maxPrice
+            """)
+    List<ProductResponse> findResponsesByPriceBetween(@Param("minPrice") BigDecimal minPrice,
+                                                      @Param("maxPrice") BigDecimal maxPrice,
+                                                      Sort sort, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    @Query("""
+            select new com.valentinpopescu.store.product.dto.CatalogChange(
+                p.changeSeq, p.id, p.productCode, p.name, p.price, p.version)
+            from Product p where p.changeSeq > :since and p.changeSeq <= :until order by p.changeSeq
+            """)
+    List<CatalogChange> findChangesBetween(@Param("since") Long since, @Param("until") Long until, Limit limit);
+
+    @Query("""
+            select greatest(coalesce((select max(p.changeSeq) from Product p), 0),
+                            coalesce((select max(t.changeSeq) from ProductTombstone t), 0))
+            """)
+    long findHighestChangeSeq();
+
+    @Query("select p.productCode from Product p where p.productCode in :productCodes")
+    Set<String> findExistingProductCodes(@Param("productCodes") Collection<String> productCodes);
+
+    @Modifying
+    @Query("delete from Product p where p.productCode = :productCode")
+    int deleteByProductCode(@Param("productCode") String productCode);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL")
+    })
+    @Query("""
+            select new com.valentinpopescu.store.product.dto.ProductResponse(p.id, p.productCode, p.name, p.price, p.version)
+            from Product p order by p.id
+            """)
+    Stream<ProductResponse> streamAllResponses();
 }
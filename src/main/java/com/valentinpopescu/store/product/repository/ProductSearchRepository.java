@@ -0,0 +1,11 @@
+package com.valentinpopescu.store.product.repository;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+public interface ProductSearchRepository {
+
+    List<ProductResponse> searchByTerms(List<String> terms, String productCode, String productCodePattern, Limit limit);
+}
@@ -0,0 +1,57 @@
+package com.valentinpopescu.store.product.repository;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+class ProductSearchRepositoryImpl implements ProductSearchRepository {
+
+    private static final int SHORT_TERM_LENGTH = 3;
+    private static final String SEARCH_TEXT = """
+            concat(' ', replace(replace(replace(replace(lower(concat(p.name, ' ', p.productCode)), \
+            '-', ' '), '_', ' '), '.', ' '), '/', ' '))""";
+    private static final String CODE_SCORE = """
+            case when lower(p.productCode) = :code then 1000 \
+            when lower(p.productCode) like :codePattern escape '\\' then 500 else 0 end""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductResponse> searchByTerms(List<String> terms, String productCode, String productCodePattern,
+                                               Limit limit) {
+        StringBuilder where = new StringBuilder();
+        StringBuilder score = new StringBuilder(CODE_SCORE);
+        for (int i = 0; i < terms.size(); i++) {
+            String match = terms.get(i).length() < SHORT_TERM_LENGTH ? ":word" + i : ":part" + i;
+            where.append(i == 0 ? "" : " and ").append(SEARCH_TEXT).append(" like ").append(match);
+            score.append(" + case when ").append(SEARCH_TEXT).append(" like :word").append(i)
+                    .append(" then 20 else 5 end");
+        }
+
+        TypedQuery<ProductResponse> query = entityManager.createQuery("""
+                        select new com.valentinpopescu.store.product.dto.ProductResponse(
+                            p.id, p.productCode, p.name, p.price, p.version)
+                        from Product p
+                        where %s
+                        order by %s desc, length(p.name), p.id
+                        """.formatted(where, score), ProductResponse.class)
+                .setParameter("code", productCode)
+                .setParameter("codePattern", productCodePattern)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, "MANUAL")
+                .setMaxResults(limit.max());
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            query.setParameter("word" + i, "% " + term + "%");
+            if (term.length() >= SHORT_TERM_LENGTH) {
+                query.setParameter("part" + i, "%" + term + "%");
+            }
+        }
+        return query.getResultList();
+    }
+}
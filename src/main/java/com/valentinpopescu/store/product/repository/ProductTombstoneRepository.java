@@ -0,0 +1,31 @@
+package com.valentinpopescu.store.product.repository;
+
+import com.valentinpopescu.store.product.model.ProductTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+
+    List<ProductTombstone> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(Long since, Long until,
+                                                                                                 Limit limit);
+
+    @Query("select max(t.changeSeq) from ProductTombstone t where t.deletedAt < :cutoff")
+    Long findLastChangeSeqDeletedBefore(@Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from ProductTombstone t where t.changeSeq <= :through")
+    int deleteThrough(@Param("through") Long through);
+
+    @Query("select h.purgedThrough from ProductChangeHorizon h where h.id = 1")
+    Long findPurgedThrough();
+
+    @Modifying
+    @Query("update ProductChangeHorizon h set h.purgedThrough = :through where h.id = 1 and h.purgedThrough < :through")
+    int advancePurgedThrough(@Param("through") Long through);
+}
@@ -0,0 +1,24 @@
+package com.valentinpopescu.store.product.repository;
+
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface ProductWriteRepository {
+
+    Optional<ProductResponse> updatePriceByProductCode(String productCode, BigDecimal price, ProductEtags.Tag expected,
+                                                       long changeSeq);
+    long nextChangeSequence();
+    long[] nextChangeSequences(int count);
+    int adjustPriceByProductCodes(Collection<String> productCodes, long factorMicros, BigDecimal delta,
+                                  Consumer<ProductResponse> repriced);
+    int adjustPriceByFilter(String codePattern, BigDecimal minPrice, BigDecimal maxPrice, long factorMicros,
+                            BigDecimal delta, Consumer<ProductResponse> repriced);
+    int upsertAll(List<ProductCreateRequest> products, Consumer<ProductResponse> repriced);
+}
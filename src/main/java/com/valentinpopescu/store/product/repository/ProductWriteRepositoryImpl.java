@@ -0,0 +1,343 @@
+package com.valentinpopescu.store.product.repository;
+
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+class ProductWriteRepositoryImpl implements ProductWriteRepository {
+
+    private static final String UPDATE_PRICE =
+            "update product set price = :price, version = version + 1, change_seq = :changeSeq where product_code = :productCode";
+    private static final String EXPECTED_VERSION = " and id = :id and version = :version";
+    private static final String RETURNED_COLUMNS = "id, product_code, name, price, version";
+    private static final String ADJUSTED_PRICE = "round(price * :factorMicros / 1000000 + :delta, 2)";
+    private static final String ADJUST_PRICE =
+            "update product set price = " + ADJUSTED_PRICE + ", version = version + 1, change_seq = %s where ";
+    private static final String ADJUST_BY_CODES = "product_code in (:productCodes) and " + ADJUSTED_PRICE + " > 0";
+    private static final String ADJUST_BY_FILTER = "product_code like :codePattern escape '\\' "
+            + "and price between :minPrice and :maxPrice and " + ADJUSTED_PRICE + " > 0";
+    private static final String UPSERT_UPDATE =
+            "update product set name = ?, price = ?, version = version + 1, change_seq = %s where product_code = ?";
+    private static final String LOCK_EXISTING =
+            "select id, product_code, price, version from product where product_code in (%s) for update";
+    private static final String UPSERT_INSERT =
+            "insert into product (id, product_code, name, price, version, change_seq) values (?, ?, ?, ?, 0, %s)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile ReturningSyntax returningSyntax;
+    private volatile SequenceSeries sequenceSeries;
+
+    @Override
+    public Optional<ProductResponse> updatePriceByProductCode(String productCode, BigDecimal price,
+                                                              ProductEtags.Tag expected, long changeSeq) {
+        String update = expected == null ? UPDATE_PRICE : UPDATE_PRICE + EXPECTED_VERSION;
+        String sql = switch (returningSyntax()) {
+            case FINAL_TABLE -> "select " + RETURNED_COLUMNS + " from final table (" + update + ")";
+            case RETURNING -> update + " returning " + RETURNED_COLUMNS;
+            case NONE -> null;
+        };
+        if (sql == null) {
+            return updatePriceThenSelect(productCode, price, expected, changeSeq);
+        }
+
+        NativeQuery<Object[]> query = entityManager.unwrap(Session.class)
+                .createNativeQuery(sql, Object[].class)
+                .addSynchronizedEntityClass(Product.class);
+        return bind(query, productCode, price, expected, changeSeq).getResultList().stream()
+                .map(ProductWriteRepositoryImpl::toResponse)
+                .findFirst();
+    }
+
+    @Override
+    public long nextChangeSequence() {
+        return entityManager.unwrap(Session.class)
+                .createNativeQuery(dialect().getSequenceSupport().getSequenceNextValString(Product.CHANGE_SEQUENCE),
+                        Long.class)
+                .getSingleResult();
+    }
+
+    @Override
+    public long[] nextChangeSequences(int count) {
+        String nextValue = dialect().getSequenceSupport().getSelectSequenceNextValString(Product.CHANGE_SEQUENCE);
+        String sql = switch (sequenceSeries()) {
+            case SYSTEM_RANGE -> "select " + nextValue + " from system_range(1, :count)";
+            case GENERATE_SERIES -> "select " + nextValue + " from generate_series(1, :count)";
+            case NONE -> null;
+        };
+        if (sql == null) {
+            long[] sequences = new long[count];
+            for (int i = 0; i < count; i++) {
+                sequences[i] = nextChangeSequence();
+            }
+            return sequences;
+        }
+
+        return entityManager.unwrap(Session.class)
+                .createNativeQuery(sql, Long.class)
+                .setParameter("count", count)
+                .getResultList()
+                .stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+    }
+
+    @Override
+    public int adjustPriceByProductCodes(Collection<String> productCodes, long factorMicros, BigDecimal delta,
+                                         Consumer<ProductResponse> repriced) {
+        return adjustPrice(ADJUST_BY_CODES, Map.of(
+                "productCodes", productCodes,
+                "factorMicros", factorMicros,
+                "delta", delta), repriced);
+    }
+
+    @Override
+    public int adjustPriceByFilter(String codePattern, BigDecimal minPrice, BigDecimal maxPrice, long factorMicros,
+                                   BigDecimal delta, Consumer<ProductResponse> repriced) {
+        return adjustPrice(ADJUST_BY_FILTER, Map.of(
+                "codePattern", codePattern,
+                "minPrice", minPrice,
+                "maxPrice", maxPrice,
+                "factorMicros", factorMicros,
+                "delta", delta), repriced);
+    }
+
+    @Override
+    public int upsertAll(List<ProductCreateRequest> products, Consumer<ProductResponse> repriced) {
+        String nextId = dialect().getSequenceSupport().getSequenceNextValString(Product.ID_SEQUENCE);
+        String nextChangeSeq = dialect().getSequenceSupport().getSelectSequenceNextValString(Product.CHANGE_SEQUENCE);
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Map<String, ProductResponse> current = lockExisting(connection, products);
+            int[] updated;
+            try (PreparedStatement update = connection.prepareStatement(UPSERT_UPDATE.formatted(nextChangeSeq))) {
+                for (ProductCreateRequest product : products) {
+                    update.setString(1, product.name());
+                    update.setBigDecimal(2, product.price());
+                    update.setString(3, product.productCode());
+                    update.addBatch();
+                }
+                updated = update.executeBatch();
+            }
+
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                ProductCreateRequest product = products.get(i);
+                ProductResponse before = current.get(product.productCode());
+                if (updated[i] == 0) {
+                    missing.add(i);
+                } else if (before != null && before.price().compareTo(product.price()) != 0) {
+                    repriced.accept(new ProductResponse(before.id(), product.productCode(), product.name(),
+                            product.price(), before.version() + 1));
+                }
+            }
+            if (missing.isEmpty()) {
+                return 0;
+            }
+
+            PrimitiveIterator.OfLong ids = allocateIds(connection, nextId, missing.size());
+            try (PreparedStatement insert = connection.prepareStatement(UPSERT_INSERT.formatted(nextChangeSeq))) {
+                for (int i : missing) {
+                    ProductCreateRequest product = products.get(i);
+                    insert.setLong(1, ids.nextLong());
+                    insert.setString(2, product.productCode());
+                    insert.setString(3, product.name());
+                    insert.setBigDecimal(4, product.price());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            return missing.size();
+        });
+    }
+
+    private int adjustPrice(String where, Map<String, Object> parameters, Consumer<ProductResponse> repriced) {
+        entityManager.flush();
+        entityManager.clear();
+        String nextChangeSeq = dialect().getSequenceSupport().getSelectSequenceNextValString(Product.CHANGE_SEQUENCE);
+        String update = ADJUST_PRICE.formatted(nextChangeSeq) + where;
+        String sql = switch (returningSyntax()) {
+            case FINAL_TABLE -> "select " + RETURNED_COLUMNS + " from final table (" + update + ")";
+            case RETURNING -> update + " returning " + RETURNED_COLUMNS;
+            case NONE -> null;
+        };
+        Session session = entityManager.unwrap(Session.class);
+        if (sql == null) {
+            NativeQuery<Object> query = session.createNativeQuery(update, Object.class)
+                    .addSynchronizedEntityClass(Product.class);
+            parameters.forEach((name, value) -> query.setParameter(name, value));
+            return query.executeUpdate();
+        }
+
+        NativeQuery<Object[]> query = session.createNativeQuery(sql, Object[].class)
+                .addSynchronizedEntityClass(Product.class);
+        parameters.forEach((name, value) -> query.setParameter(name, value));
+        List<Object[]> rows = query.getResultList();
+        rows.forEach(row -> repriced.accept(toResponse(row)));
+        return rows.size();
+    }
+
+    private static Map<String, ProductResponse> lockExisting(Connection connection,
+                                                             List<ProductCreateRequest> products) throws SQLException {
+        Map<String, ProductResponse> existing = new HashMap<>();
+        String sql = LOCK_EXISTING.formatted(String.join(", ", Collections.nCopies(products.size(), "?")));
+        try (PreparedStatement select = connection.prepareStatement(sql)) {
+            for (int i = 0; i < products.size(); i++) {
+                select.setString(i + 1, products.get(i).productCode());
+            }
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    ProductResponse product = new ProductResponse(rs.getLong(1), rs.getString(2), null,
+                            rs.getBigDecimal(3), rs.getLong(4));
+                    existing.put(product.productCode(), product);
+                }
+            }
+        }
+        return existing;
+    }
+
+    private static ProductResponse toResponse(Object[] row) {
+        return new ProductResponse(
+                ((Number) row[0]).longValue(),
+                (String) row[1],
+                (String) row[2],
+                (BigDecimal) row[3],
+                ((Number) row[4]).longValue());
+    }
+
+    private static PrimitiveIterator.OfLong allocateIds(Connection connection, String nextId, int count)
+            throws SQLException {
+        LongStream.Builder ids = LongStream.builder();
+        int allocated = 0;
+        try (PreparedStatement statement = connection.prepareStatement(nextId)) {
+            while (allocated < count) {
+                long last;
+                try (ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    last = rs.getLong(1);
+                }
+                if (last < Product.ID_ALLOCATION_SIZE) {
+                    continue;
+                }
+                for (long id = last - Product.ID_ALLOCATION_SIZE + 1; id <= last; id++) {
+                    ids.add(id);
+                }
+                allocated += Product.ID_ALLOCATION_SIZE;
+            }
+        }
+        return ids.build().iterator();
+    }
+
+    private Optional<ProductResponse> updatePriceThenSelect(String productCode, BigDecimal price,
+                                                            ProductEtags.Tag expected, long changeSeq) {
+        String update = """
+                update Product p set p.price = :price, p.version = p.version + 1, p.changeSeq = :changeSeq
+                where p.productCode = :productCode
+                """;
+        if (expected != null) {
+            update += " and p.id = :id and p.version = :version";
+        }
+        if (bind(entityManager.createQuery(update), productCode, price, expected, changeSeq).executeUpdate() == 0) {
+            return Optional.empty();
+        }
+
+        return entityManager.createQuery("""
+                        select new com.valentinpopescu.store.product.dto.ProductResponse(
+                            p.id, p.productCode, p.name, p.price, p.version)
+                        from Product p where p.productCode = :productCode
+                        """, ProductResponse.class)
+                .setParameter("productCode", productCode)
+                .getResultStream()
+                .findFirst();
+    }
+
+    private static <Q extends Query> Q bind(Q query, String productCode, BigDecimal price, ProductEtags.Tag expected,
+                                            long changeSeq) {
+        query.setParameter("price", price)
+                .setParameter("productCode", productCode)
+                .setParameter("changeSeq", changeSeq);
+        if (expected != null) {
+            query.setParameter("id", expected.id())
+                    .setParameter("version", expected.version());
+        }
+        return query;
+    }
+
+    private ReturningSyntax returningSyntax() {
+        ReturningSyntax syntax = returningSyntax;
+        if (syntax == null) {
+            Dialect dialect = dialect();
+            if (dialect instanceof H2Dialect) {
+                syntax = ReturningSyntax.FINAL_TABLE;
+            } else if (dialect instanceof PostgreSQLDialect) {
+                syntax = ReturningSyntax.RETURNING;
+            } else {
+                syntax = ReturningSyntax.NONE;
+            }
+            returningSyntax = syntax;
+        }
+        return syntax;
+    }
+
+    private SequenceSeries sequenceSeries() {
+        SequenceSeries series = sequenceSeries;
+        if (series == null) {
+            Dialect dialect = dialect();
+            if (dialect instanceof H2Dialect) {
+                series = SequenceSeries.SYSTEM_RANGE;
+            } else if (dialect instanceof PostgreSQLDialect) {
+                series = SequenceSeries.GENERATE_SERIES;
+            } else {
+                series = SequenceSeries.NONE;
+            }
+            sequenceSeries = series;
+        }
+        return series;
+    }
+
+    private Dialect dialect() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+    }
+
+    private enum ReturningSyntax {
+        FINAL_TABLE,
+        RETURNING,
+        NONE
+    }
+
+    private enum SequenceSeries {
+        SYSTEM_RANGE,
+        GENERATE_SERIES,
+        NONE
+    }
+}
@@ -0,0 +1,148 @@
+package com.valentinpopescu.store.product.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.datasource.ReplicaRoutingDataSource;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.service.ProductService;
+import com.valentinpopescu.store.product.version.CatalogVersions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class CatalogResponseCache {
+
+    private static final Pattern ZERO_QUALITY = Pattern.compile("(?i)q\\s*=\\s*0(\\.0{0,3})?");
+
+    private final ProductService service;
+    private final CatalogVersions versions;
+    private final ProductProperties properties;
+    private final List<Format> formats;
+
+    public CatalogResponseCache(ProductService service, CatalogVersions versions, ProductProperties properties,
+                                MappingJackson2HttpMessageConverter json,
+                                MappingJackson2CborHttpMessageConverter cbor,
+                                MappingJackson2SmileHttpMessageConverter smile) {
+        this.service = service;
+        this.versions = versions;
+        this.properties = properties;
+        this.formats = List.of(format(json), format(cbor), format(smile));
+    }
+
+    public MediaType negotiate(List<MediaType> accepted) throws HttpMediaTypeNotAcceptableException {
+        for (MediaType mediaType : accepted) {
+            for (Format format : formats) {
+                if (mediaType.isCompatibleWith(format.mediaType)) {
+                    return format.mediaType;
+                }
+            }
+        }
+        throw new HttpMediaTypeNotAcceptableException(formats.stream().map(format -> format.mediaType).toList());
+    }
+
+    public Body get(MediaType mediaType, boolean acceptsGzip) {
+        Entry entry = current(formats.stream()
+                .filter(format -> format.mediaType.equals(mediaType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported media type: " + mediaType)));
+        if (acceptsGzip && entry.gzipped != null) {
+            return new Body(entry.version, entry.gzipped, true);
+        }
+        return new Body(entry.version, entry.body, false);
+    }
+
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String coding : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+            String[] parts = StringUtils.tokenizeToStringArray(coding, ";");
+            boolean acceptable = parts.length < 2 || !ZERO_QUALITY.matcher(parts[1]).matches();
+            if (parts[0].equalsIgnoreCase("gzip")) {
+                return acceptable;
+            }
+            if (parts[0].equals("*")) {
+                wildcard = acceptable;
+            }
+        }
+        return wildcard;
+    }
+
+    private Entry current(Format format) {
+        long version = versions.currentVersion();
+        Entry entry = format.entry;
+        if (entry != null && entry.version == version) {
+            return entry;
+        }
+        if (!properties.getListCache().isEnabled()) {
+            return encode(format, version);
+        }
+
+        synchronized (format) {
+            version = versions.currentVersion();
+            entry = format.entry;
+            if (entry == null || entry.version != version) {
+                entry = encode(format, version);
+                format.entry = entry;
+            }
+            return entry;
+        }
+    }
+
+    private Entry encode(Format format, long version) {
+        try {
+            byte[] body = format.writer.writeValueAsBytes(ReplicaRoutingDataSource.onPrimary(service::findAll));
+            ProductProperties.ListCache listCache = properties.getListCache();
+            byte[] gzipped = listCache.isGzip() && body.length >= listCache.getGzipMinSize().toBytes()
+                    ? gzip(body)
+                    : null;
+            return new Entry(version, body, gzipped);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Format format(AbstractJackson2HttpMessageConverter converter) {
+        ObjectMapper mapper = converter.getObjectMapper();
+        ObjectWriter writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, ProductResponse.class));
+        return new Format(converter.getSupportedMediaTypes().get(0), writer);
+    }
+
+    public record Body(long version, byte[] bytes, boolean gzipped) {
+    }
+
+    private record Entry(long version, byte[] body, byte[] gzipped) {
+    }
+
+    @RequiredArgsConstructor
+    private static final class Format {
+
+        private final MediaType mediaType;
+        private final ObjectWriter writer;
+        private volatile Entry entry;
+    }
+}
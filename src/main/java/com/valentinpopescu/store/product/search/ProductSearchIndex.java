@@ -0,0 +1,62 @@
+package com.valentinpopescu.store.product.search;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.common.CatalogView;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class ProductSearchIndex extends CatalogView<SearchIndexData> {
+
+    private static final int MIN_DELETED_DOCS_TO_COMPACT = 1024;
+
+    private final ProductProperties properties;
+
+    public ProductSearchIndex(ProductRepository repository, ProductProperties properties) {
+        super("Product search index", repository);
+        this.properties = properties;
+    }
+
+    public List<ProductResponse> search(String query, int limit) {
+        return read(data -> data.search(query, limit));
+    }
+
+    public static List<String> terms(String query) {
+        String normalized = SearchIndexData.normalize(query);
+        return normalized.isEmpty() ? List.of() : List.of(normalized.split(" "));
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return properties.getSearch().isEnabled();
+    }
+
+    @Override
+    protected SearchIndexData newData(int expectedSize) {
+        return new SearchIndexData(expectedSize);
+    }
+
+    @Override
+    protected int size(SearchIndexData target) {
+        return target.size();
+    }
+
+    @Override
+    protected void apply(SearchIndexData target, ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, PRICE_CHANGED -> target.put(event.product());
+            case DELETED -> target.remove(event.productCode());
+        }
+    }
+
+    @Override
+    protected SearchIndexData compact(SearchIndexData current) {
+        return current.deletedDocs() > Math.max(MIN_DELETED_DOCS_TO_COMPACT, current.size())
+                ? current.compact()
+                : current;
+    }
+}
@@ -0,0 +1,251 @@
+package com.valentinpopescu.store.product.search;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+class SearchIndexData {
+
+    private static final char WORD_START = '\u0002';
+    private static final int MIN_CAPACITY = 16;
+    private static final int EXACT_CODE_SCORE = 1000;
+    private static final int CODE_PREFIX_SCORE = 500;
+    private static final int WORD_PREFIX_SCORE = 20;
+    private static final int CONTAINS_SCORE = 5;
+
+    private ProductResponse[] docs;
+    private String[] texts;
+    private int docCount;
+    private int liveCount;
+
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    SearchIndexData(int expectedDocs) {
+        int capacity = Math.max(MIN_CAPACITY, expectedDocs);
+        docs = new ProductResponse[capacity];
+        texts = new String[capacity];
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    int deletedDocs() {
+        return docCount - liveCount;
+    }
+
+    void put(ProductResponse product) {
+        Integer doc = docIds.get(product.productCode());
+        if (doc != null && docs[doc].name().equals(product.name())) {
+            docs[doc] = product;
+            return;
+        }
+        if (doc != null) {
+            remove(product.productCode());
+        }
+        append(product);
+    }
+
+    boolean remove(String productCode) {
+        Integer doc = docIds.remove(productCode);
+        if (doc == null) {
+            return false;
+        }
+        docs[doc] = null;
+        texts[doc] = null;
+        liveCount--;
+        return true;
+    }
+
+    SearchIndexData compact() {
+        SearchIndexData compacted = new SearchIndexData(liveCount);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (docs[doc] != null) {
+                compacted.append(docs[doc]);
+            }
+        }
+        return compacted;
+    }
+
+    List<ProductResponse> search(String query, int limit) {
+        String normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty()) {
+            return List.of();
+        }
+        String[] terms = normalizedQuery.split(" ");
+
+        List<Postings> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (long gram : queryGrams(term)) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        String exactCode = query.trim().toLowerCase(Locale.ROOT);
+        Comparator<Hit> ranking = Comparator.comparingInt(Hit::score)
+                .thenComparing(hit -> -docs[hit.doc].name().length())
+                .thenComparing(hit -> -hit.doc);
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, ranking);
+
+        Postings smallest = lists.get(0);
+        for (int i = 0; i < smallest.size; i++) {
+            int doc = smallest.docs[i];
+            if (docs[doc] == null || !inAll(lists, doc)) {
+                continue;
+            }
+            int score = score(doc, terms, exactCode);
+            if (score < 0) {
+                continue;
+            }
+            top.add(new Hit(doc, score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<ProductResponse> results = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            results.add(docs[top.poll().doc]);
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private void append(ProductResponse product) {
+        ensureCapacity(docCount + 1);
+        int doc = docCount++;
+        String text = normalize(product.name()) + " " + normalize(product.productCode());
+        docs[doc] = product;
+        texts[doc] = text;
+        docIds.put(product.productCode(), doc);
+        liveCount++;
+
+        for (String word : text.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            add(gram(WORD_START, word.charAt(0), '\0'), doc);
+            if (word.length() > 1) {
+                add(gram(WORD_START, word.charAt(0), word.charAt(1)), doc);
+            }
+            for (int i = 0; i + 3 <= word.length(); i++) {
+                add(gram(word.charAt(i), word.charAt(i + 1), word.charAt(i + 2)), doc);
+            }
+        }
+    }
+
+    private void add(long gram, int doc) {
+        postings.computeIfAbsent(gram, key -> new Postings()).add(doc);
+    }
+
+    private int score(int doc, String[] terms, String exactCode) {
+        String text = texts[doc];
+        String code = docs[doc].productCode().toLowerCase(Locale.ROOT);
+        int score = 0;
+        if (code.equals(exactCode)) {
+            score += EXACT_CODE_SCORE;
+        } else if (code.startsWith(exactCode)) {
+            score += CODE_PREFIX_SCORE;
+        }
+        for (String term : terms) {
+            if (text.startsWith(term) || text.contains(" " + term)) {
+                score += WORD_PREFIX_SCORE;
+            } else if (term.length() >= 3 && text.contains(term)) {
+                score += CONTAINS_SCORE;
+            } else {
+                return -1;
+            }
+        }
+        return score;
+    }
+
+    private static long[] queryGrams(String term) {
+        if (term.length() == 1) {
+            return new long[] { gram(WORD_START, term.charAt(0), '\0') };
+        }
+        if (term.length() == 2) {
+            return new long[] { gram(WORD_START, term.charAt(0), term.charAt(1)) };
+        }
+        long[] grams = new long[term.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(term.charAt(i), term.charAt(i + 1), term.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static long gram(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+
+    private static boolean inAll(List<Postings> lists, int doc) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(doc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > docs.length) {
+            int capacity = Math.max(size, docs.length + (docs.length >> 1));
+            docs = Arrays.copyOf(docs, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+    }
+
+    private record Hit(int doc, int score) {
+    }
+
+    private static class Postings {
+
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        boolean contains(int doc) {
+            return Arrays.binarySearch(docs, 0, size, doc) >= 0;
+        }
+    }
+}
@@ -1,16 +1,34 @@
 package com.valentinpopescu.store.product.service;
 
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.BulkCreateResponse;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeRequest;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeResponse;
+import com.valentinpopescu.store.product.dto.CatalogChanges;
 import com.valentinpopescu.store.product.dto.PriceChangeRequest;
+import com.valentinpopescu.store.product.dto.PriceHistoryItem;
 import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductPage;
 import com.valentinpopescu.store.product.dto.ProductResponse;
+import org.springframework.data.domain.Sort;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductService {
 
     ProductResponse add(ProductCreateRequest request);
+    BulkCreateResponse addAll(List<ProductCreateRequest> requests);
     ProductResponse findByProductCode(String productCode);
     List<ProductResponse> findAll();
-    ProductResponse changePrice(String productCode, PriceChangeRequest request);
+    ProductPage findPage(int size, String after);
+    void exportAll(Consumer<ProductResponse> consumer);
+    List<ProductResponse> search(String query, int limit);
+    CatalogChanges findChanges(long since, int limit);
+    List<PriceHistoryItem> findPriceHistory(String productCode, int limit);
+    List<ProductResponse> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Sort.Direction direction, int limit);
+    ProductResponse changePrice(String productCode, PriceChangeRequest request, ProductEtags.Tag expected);
+    BulkPriceChangeResponse changePrices(BulkPriceChangeRequest request);
     void deleteByProductCode(String productCode);
 }
@@ -1,76 +1,420 @@
 package com.valentinpopescu.store.product.service;
 
+import com.valentinpopescu.store.config.CacheConfig;
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.datasource.RecentEvictions;
+import com.valentinpopescu.store.datasource.ReplicaRoutingDataSource;
 import com.valentinpopescu.store.exceptions.BadRequestException;
 import com.valentinpopescu.store.exceptions.NotFoundException;
+import com.valentinpopescu.store.exceptions.PreconditionFailedException;
+import com.valentinpopescu.store.product.common.ProductCursors;
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.changes.ChangeSequences;
 import com.valentinpopescu.store.product.common.ProductSamples;
+import com.valentinpopescu.store.product.dto.BulkCreateItem;
+import com.valentinpopescu.store.product.dto.BulkCreateResponse;
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.dto.CatalogChanges;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeRequest;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeResponse;
+import com.valentinpopescu.store.product.dto.PriceAdjustmentType;
 import com.valentinpopescu.store.product.dto.PriceChangeRequest;
+import com.valentinpopescu.store.product.dto.PriceHistoryItem;
 import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductPage;
 import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.PricesChangedEvent;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.metrics.ProductMetrics;
 import com.valentinpopescu.store.product.model.Product;
+import com.valentinpopescu.store.product.model.ProductTombstone;
+import com.valentinpopescu.store.product.priceindex.ProductPriceIndex;
+import com.valentinpopescu.store.product.repository.PriceHistoryRepository;
 import com.valentinpopescu.store.product.repository.ProductRepository;
-import jakarta.transaction.Transactional;
+import com.valentinpopescu.store.product.repository.ProductTombstoneRepository;
+import com.valentinpopescu.store.product.search.ProductSearchIndex;
+import com.valentinpopescu.store.product.snapshot.CatalogSnapshot;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
+@Timed(value = "product.service", histogram = true)
 @Log4j2
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
     public static final Supplier<NotFoundException> PRODUCT_NOT_FOUND =
             () -> new NotFoundException("Product not found");
+    private static final int CODE_LOOKUP_CHUNK_SIZE = 1000;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999999999999.99");
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final long FACTOR_ONE = 1_000_000L;
     private final ProductRepository repository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final ProductTombstoneRepository tombstoneRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ProductProperties properties;
+    private final ApplicationEventPublisher events;
+    private final CatalogSnapshot snapshot;
+    private final ProductSearchIndex searchIndex;
+    private final ProductPriceIndex priceIndex;
+    private final ProductMetrics metrics;
+    private final ChangeSequences changeSequences;
+    private final RecentEvictions recentEvictions;
 
     @Override
+    @CachePut(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#result.productCode")
     public ProductResponse add(ProductCreateRequest request) {
-        if (repository.existsByProductCode(request.productCode())) {
-            throw new BadRequestException("Product already exists");
+        Product product = ProductSamples.requestToProduct(request);
+        product.setChangeSeq(changeSequences.next());
+        Product savedProduct;
+        try {
+            savedProduct = repository.saveAndFlush(product);
+        } catch (DataIntegrityViolationException ex) {
+            if (isUniqueViolation(ex)) {
+                throw new BadRequestException("Product already exists");
+            }
+            throw ex;
         }
+        log.info("Product created: product code={}", savedProduct.getProductCode());
 
+        ProductResponse response = ProductSamples.productToResponse(savedProduct);
+        metrics.created(1);
+        events.publishEvent(ProductChangedEvent.created(response));
+        return response;
+    }
 
-        Product product = ProductSamples.requestToProduct(request);
-        Product savedProduct = repository.save(product);
-        log.info("Product created: product code={}", savedProduct.getProductCode());
+    @Override
+    public BulkCreateResponse addAll(List<ProductCreateRequest> requests) {
+        int maxItems = properties.getBulk().getMaxItems();
+        if (requests.size() > maxItems) {
+            throw new BadRequestException("Too many products, at most " + maxItems + " allowed");
+        }
+
+        int batchSize = properties.getBulk().getBatchSize();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        long[] changeSeqs = changeSequences.next(requests.size());
+        Set<String> existingCodes = findExistingProductCodes(requests);
+        Set<String> seenCodes = new HashSet<>();
+        List<BulkCreateItem> items = new ArrayList<>(requests.size());
+        int created = 0;
 
-        return ProductSamples.productToResponse(savedProduct);
+        for (int index = 0; index < requests.size(); index++) {
+            ProductCreateRequest request = requests.get(index);
+            String error = validateForBulk(request, existingCodes, seenCodes);
+            if (error != null) {
+                items.add(BulkCreateItem.failed(index, request == null ? null : request.productCode(), error));
+                continue;
+            }
+
+            Product product = ProductSamples.requestToProduct(request);
+            product.setChangeSeq(changeSeqs[index]);
+            entityManager.persist(product);
+            items.add(BulkCreateItem.created(index, ProductSamples.productToResponse(product)));
+
+            if (++created % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        log.info("Products bulk created: created={}, failed={}", created, requests.size() - created);
+        if (created > 0) {
+            metrics.created(created);
+            events.publishEvent(ProductChangedEvent.bulkChanged());
+        }
+        return new BulkCreateResponse(created, requests.size() - created, items);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productCode", sync = true)
     public ProductResponse findByProductCode(String productCode) {
-        Product product = repository.findByProductCode(productCode)
-                .orElseThrow(PRODUCT_NOT_FOUND);
-        return ProductSamples.productToResponse(product);
+        if (recentEvictions.isRecent(productCode)) {
+            return ReplicaRoutingDataSource.onPrimary(() -> lookup(productCode));
+        }
+        return lookup(productCode);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ProductResponse> findAll() {
-        return repository.findAll()
-                .stream()
-                .map(ProductSamples::productToResponse)
-                .toList();
+        if (snapshot.isReady()) {
+            return snapshot.findAll();
+        }
+
+        return repository.findAllResponses();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductPage findPage(int size, String after) {
+        long afterId = ProductCursors.decode(after);
+        List<ProductResponse> products = repository.findResponsesAfterId(afterId, Limit.of(size + 1));
+
+        boolean hasMore = products.size() > size;
+        List<ProductResponse> items = hasMore ? List.copyOf(products.subList(0, size)) : products;
+        String nextCursor = hasMore ? ProductCursors.encode(items.get(items.size() - 1).id()) : null;
+
+        return new ProductPage(items, nextCursor);
     }
 
     @Override
-    public ProductResponse changePrice(String productCode, PriceChangeRequest request) {
-        Product product = repository.findByProductCode(productCode)
-                .orElseThrow(PRODUCT_NOT_FOUND);
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<ProductResponse> consumer) {
+        try (Stream<ProductResponse> products = repository.streamAllResponses()) {
+            products.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> search(String query, int limit) {
+        if (searchIndex.isReady()) {
+            return searchIndex.search(query, limit);
+        }
+
+        List<String> terms = ProductSearchIndex.terms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        String productCode = query.trim().toLowerCase(Locale.ROOT);
+        return repository.searchByTerms(terms, productCode, likePrefix(productCode), Limit.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CatalogChanges findChanges(long since, int limit) {
+        return ReplicaRoutingDataSource.onPrimary(() -> readChanges(since, limit));
+    }
 
-        product.setPrice(request.price());
+    @Override
+    @Transactional(readOnly = true)
+    public List<PriceHistoryItem> findPriceHistory(String productCode, int limit) {
+        List<PriceHistoryItem> history = priceHistoryRepository.findByProductCode(productCode, Limit.of(limit));
+        if (history.isEmpty() && !repository.existsByProductCode(productCode)) {
+            throw lookupNotFound();
+        }
+        return history;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findByPriceRange(BigDecimal minPrice, BigDecimal maxPrice,
+                                                  Sort.Direction direction, int limit) {
+        BigDecimal min = minPrice == null ? BigDecimal.ZERO : minPrice;
+        BigDecimal max = maxPrice == null ? MAX_PRICE : maxPrice;
+        if (min.compareTo(max) > 0) {
+            throw new BadRequestException("minPrice must not be greater than maxPrice");
+        }
+
+        if (priceIndex.isReady()) {
+            return priceIndex.find(min, max, direction.isDescending(), limit);
+        }
+        Sort sort = Sort.by(direction, "price").and(Sort.by(direction, "id"));
+        return repository.findResponsesByPriceBetween(min, max, sort, Limit.of(limit));
+    }
+
+    @Override
+    @CachePut(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productCode")
+    public ProductResponse changePrice(String productCode, PriceChangeRequest request, ProductEtags.Tag expected) {
+        long changeSeq = changeSequences.next();
+        ProductResponse response = repository.updatePriceByProductCode(productCode, request.price(), expected, changeSeq)
+                .orElseThrow(() -> expected != null && repository.existsByProductCode(productCode)
+                        ? new PreconditionFailedException("Product has been modified")
+                        : PRODUCT_NOT_FOUND.get());
         log.info("Price changed: product code={}, new price={}", productCode, request.price());
-        return ProductSamples.productToResponse(product);
+
+        metrics.repriced(1);
+        events.publishEvent(ProductChangedEvent.priceChanged(response));
+        return response;
     }
 
     @Override
-    public void deleteByProductCode(String productCode) {
-        Product product = repository.findByProductCode(productCode)
-                .orElseThrow(PRODUCT_NOT_FOUND);
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, allEntries = true)
+    public BulkPriceChangeResponse changePrices(BulkPriceChangeRequest request) {
+        boolean byCodes = request.productCodes() != null && !request.productCodes().isEmpty();
+        boolean byFilter = request.codePrefix() != null || request.minPrice() != null || request.maxPrice() != null;
+        if (byCodes == byFilter) {
+            throw new BadRequestException("Either product codes or a filter must be provided");
+        }
+
+        boolean percentage = request.type() == PriceAdjustmentType.PERCENTAGE;
+        long factorMicros = percentage ? percentageFactor(request.amount()) : FACTOR_ONE;
+        BigDecimal delta = percentage ? BigDecimal.ZERO : request.amount();
+        List<ProductResponse> repriced = new ArrayList<>();
+        int updated = changeSequences.numbering(() -> byCodes
+                ? adjustPriceByProductCodes(request.productCodes(), factorMicros, delta, repriced::add)
+                : repository.adjustPriceByFilter(
+                        likePrefix(request.codePrefix()),
+                        request.minPrice() == null ? BigDecimal.ZERO : request.minPrice(),
+                        request.maxPrice() == null ? MAX_PRICE : request.maxPrice(),
+                        factorMicros,
+                        delta,
+                        repriced::add));
+
+        log.info("Prices changed in bulk: type={}, amount={}, updated={}", request.type(), request.amount(), updated);
+        if (updated > 0) {
+            metrics.repriced(updated);
+            events.publishEvent(ProductChangedEvent.bulkChanged());
+        }
+        if (!repriced.isEmpty()) {
+            events.publishEvent(new PricesChangedEvent(repriced));
+        }
+        return new BulkPriceChangeResponse(updated);
+    }
 
-        repository.delete(product);
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#productCode")
+    public void deleteByProductCode(String productCode) {
+        long changeSeq = changeSequences.next();
+        if (repository.deleteByProductCode(productCode) == 0) {
+            throw PRODUCT_NOT_FOUND.get();
+        }
+        tombstoneRepository.save(new ProductTombstone(productCode, changeSeq, Instant.now()));
         log.warn("Product deleted: product code={}", productCode);
+        metrics.deleted();
+        events.publishEvent(ProductChangedEvent.deleted(productCode));
+    }
+
+    private CatalogChanges readChanges(long since, int limit) {
+        long until = changeSequences.watermark();
+        List<CatalogChange> changes = new ArrayList<>(repository.findChangesBetween(since, until, Limit.of(limit + 1)));
+        tombstoneRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(since, until,
+                        Limit.of(limit + 1))
+                .forEach(tombstone -> changes.add(new CatalogChange(tombstone.getChangeSeq(),
+                        ProductChangedEvent.ChangeType.DELETED, tombstone.getProductCode(), null)));
+        if (since > 0 && since < tombstoneRepository.findPurgedThrough()) {
+            return new CatalogChanges(List.of(), until, false, true);
+        }
+        changes.sort(Comparator.comparingLong(CatalogChange::sequence));
+
+        boolean hasMore = changes.size() > limit;
+        List<CatalogChange> page = hasMore ? changes.subList(0, limit) : changes;
+        long nextSince = page.isEmpty() ? since : page.get(page.size() - 1).sequence();
+        return new CatalogChanges(List.copyOf(page), nextSince, hasMore, false);
+    }
+
+    private ProductResponse lookup(String productCode) {
+        if (snapshot.isReady()) {
+            return snapshot.find(productCode)
+                    .orElseThrow(this::lookupNotFound);
+        }
+
+        return repository.findResponseByProductCode(productCode)
+                .orElseThrow(this::lookupNotFound);
+    }
+
+    private int adjustPriceByProductCodes(List<String> productCodes, long factorMicros, BigDecimal delta,
+                                          Consumer<ProductResponse> repriced) {
+        List<String> codes = productCodes.stream().distinct().toList();
+        int updated = 0;
+        for (int from = 0; from < codes.size(); from += CODE_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = codes.subList(from, Math.min(from + CODE_LOOKUP_CHUNK_SIZE, codes.size()));
+            updated += repository.adjustPriceByProductCodes(chunk, factorMicros, delta, repriced);
+        }
+        return updated;
+    }
+
+    private static long percentageFactor(BigDecimal percentage) {
+        if (percentage.compareTo(HUNDRED.negate()) <= 0) {
+            throw new BadRequestException("Percentage must be greater than -100");
+        }
+        return BigDecimal.ONE.add(percentage.divide(HUNDRED))
+                .movePointRight(6)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    private static boolean isUniqueViolation(DataIntegrityViolationException ex) {
+        return ex.getCause() instanceof ConstraintViolationException violation
+                && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+    }
+
+    private NotFoundException lookupNotFound() {
+        metrics.notFound();
+        return PRODUCT_NOT_FOUND.get();
+    }
+
+    private Set<String> findExistingProductCodes(List<ProductCreateRequest> requests) {
+        List<String> codes = requests.stream()
+                .filter(Objects::nonNull)
+                .map(ProductCreateRequest::productCode)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < codes.size(); from += CODE_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = codes.subList(from, Math.min(from + CODE_LOOKUP_CHUNK_SIZE, codes.size()));
+            existing.addAll(repository.findExistingProductCodes(chunk));
+        }
+        return existing;
+    }
+
+    private String likePrefix(String prefix) {
+        if (prefix == null) {
+            return "%";
+        }
+        return escapeLike(prefix) + "%";
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    private String validateForBulk(ProductCreateRequest request, Set<String> existingCodes, Set<String> seenCodes) {
+        if (request == null) {
+            return "Product must not be null";
+        }
+
+        Set<ConstraintViolation<ProductCreateRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<ProductCreateRequest> violation = violations.iterator().next();
+            return violation.getPropertyPath() + " " + violation.getMessage();
+        }
+        if (existingCodes.contains(request.productCode())) {
+            return "Product already exists";
+        }
+        if (!seenCodes.add(request.productCode())) {
+            return "Duplicate product code in request";
+        }
+        return null;
     }
 }
@@ -0,0 +1,240 @@
+package com.valentinpopescu.store.product.snapshot;
+
+import com.valentinpopescu.store.product.dto.ProductResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+class CatalogData {
+
+    private static final int FREE = -1;
+    private static final int REMOVED = -2;
+    private static final long DELETED_ID = 0L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] ids;
+    private long[] priceCents;
+    private long[] versions;
+    private int[] nameStarts;
+    private int[] rowEnds;
+    private byte[] text;
+    private int textLength;
+    private int rowCount;
+    private int liveCount;
+
+    private int[] slots;
+    private int usedSlots;
+
+    CatalogData(int expectedRows) {
+        int capacity = Math.max(MIN_CAPACITY, expectedRows);
+        ids = new long[capacity];
+        priceCents = new long[capacity];
+        versions = new long[capacity];
+        nameStarts = new int[capacity];
+        rowEnds = new int[capacity];
+        text = new byte[capacity * 16];
+        slots = newSlots(capacity);
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    int deletedRows() {
+        return rowCount - liveCount;
+    }
+
+    ProductResponse find(String productCode) {
+        int row = findRow(productCode.getBytes(StandardCharsets.UTF_8));
+        return row < 0 ? null : toResponse(row);
+    }
+
+    void forEach(Consumer<ProductResponse> consumer) {
+        for (int row = 0; row < rowCount; row++) {
+            if (ids[row] != DELETED_ID) {
+                consumer.accept(toResponse(row));
+            }
+        }
+    }
+
+    void put(ProductResponse product) {
+        byte[] code = product.productCode().getBytes(StandardCharsets.UTF_8);
+        byte[] name = product.name().getBytes(StandardCharsets.UTF_8);
+        int row = findRow(code);
+        if (row >= 0 && Arrays.equals(text, nameStarts[row], rowEnds[row], name, 0, name.length)) {
+            ids[row] = product.id();
+            priceCents[row] = toCents(product.price());
+            versions[row] = toVersion(product.version());
+            return;
+        }
+        if (row >= 0) {
+            remove(product.productCode());
+        }
+        append(product.id(), code, name, toCents(product.price()), toVersion(product.version()));
+    }
+
+    boolean changePrice(String productCode, BigDecimal price, Long version) {
+        int row = findRow(productCode.getBytes(StandardCharsets.UTF_8));
+        if (row < 0) {
+            return false;
+        }
+        priceCents[row] = toCents(price);
+        versions[row] = toVersion(version);
+        return true;
+    }
+
+    boolean remove(String productCode) {
+        byte[] code = productCode.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.length - 1;
+        for (int slot = hash(code, 0, code.length) & mask; ; slot = (slot + 1) & mask) {
+            int row = slots[slot];
+            if (row == FREE) {
+                return false;
+            }
+            if (row >= 0 && codeEquals(row, code)) {
+                slots[slot] = REMOVED;
+                ids[row] = DELETED_ID;
+                liveCount--;
+                return true;
+            }
+        }
+    }
+
+    CatalogData compact() {
+        CatalogData compacted = new CatalogData(liveCount);
+        for (int row = 0; row < rowCount; row++) {
+            if (ids[row] != DELETED_ID) {
+                int codeStart = codeStart(row);
+                compacted.append(ids[row],
+                        Arrays.copyOfRange(text, codeStart, nameStarts[row]),
+                        Arrays.copyOfRange(text, nameStarts[row], rowEnds[row]),
+                        priceCents[row],
+                        versions[row]);
+            }
+        }
+        return compacted;
+    }
+
+    static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long toVersion(Long version) {
+        return version == null ? 0L : version;
+    }
+
+    private void append(long id, byte[] code, byte[] name, long cents, long version) {
+        ensureRowCapacity(rowCount + 1);
+        ensureTextCapacity(textLength + code.length + name.length);
+
+        System.arraycopy(code, 0, text, textLength, code.length);
+        System.arraycopy(name, 0, text, textLength + code.length, name.length);
+        int row = rowCount++;
+        ids[row] = id;
+        priceCents[row] = cents;
+        versions[row] = version;
+        nameStarts[row] = textLength + code.length;
+        rowEnds[row] = textLength + code.length + name.length;
+        textLength = rowEnds[row];
+        liveCount++;
+
+        if ((usedSlots + 1) * 2 > slots.length) {
+            rehash(Math.max(slots.length, Integer.highestOneBit(liveCount * 4)));
+        }
+        insertSlot(row, code);
+    }
+
+    private int findRow(byte[] code) {
+        int mask = slots.length - 1;
+        for (int slot = hash(code, 0, code.length) & mask; ; slot = (slot + 1) & mask) {
+            int row = slots[slot];
+            if (row == FREE) {
+                return -1;
+            }
+            if (row >= 0 && codeEquals(row, code)) {
+                return row;
+            }
+        }
+    }
+
+    private void insertSlot(int row, byte[] code) {
+        int mask = slots.length - 1;
+        int slot = hash(code, 0, code.length) & mask;
+        while (slots[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (slots[slot] == FREE) {
+            usedSlots++;
+        }
+        slots[slot] = row;
+    }
+
+    private void rehash(int size) {
+        slots = newSlots(size);
+        usedSlots = 0;
+        int mask = slots.length - 1;
+        for (int row = 0; row < rowCount; row++) {
+            if (ids[row] != DELETED_ID) {
+                int slot = hash(text, codeStart(row), nameStarts[row]) & mask;
+                while (slots[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = row;
+                usedSlots++;
+            }
+        }
+    }
+
+    private boolean codeEquals(int row, byte[] code) {
+        return Arrays.equals(text, codeStart(row), nameStarts[row], code, 0, code.length);
+    }
+
+    private int codeStart(int row) {
+        return row == 0 ? 0 : rowEnds[row - 1];
+    }
+
+    private ProductResponse toResponse(int row) {
+        int codeStart = codeStart(row);
+        return new ProductResponse(
+                ids[row],
+                new String(text, codeStart, nameStarts[row] - codeStart, StandardCharsets.UTF_8),
+                new String(text, nameStarts[row], rowEnds[row] - nameStarts[row], StandardCharsets.UTF_8),
+                BigDecimal.valueOf(priceCents[row], 2),
+                versions[row]
+        );
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rows > ids.length) {
+            int capacity = Math.max(rows, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            nameStarts = Arrays.copyOf(nameStarts, capacity);
+            rowEnds = Arrays.copyOf(rowEnds, capacity);
+        }
+    }
+
+    private void ensureTextCapacity(int length) {
+        if (length > text.length) {
+            text = Arrays.copyOf(text, Math.max(length, text.length + (text.length >> 1)));
+        }
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[Integer.highestOneBit(Math.max(MIN_CAPACITY, capacity) * 2 - 1) * 2];
+        Arrays.fill(slots, FREE);
+        return slots;
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
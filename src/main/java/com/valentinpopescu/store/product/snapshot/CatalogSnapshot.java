@@ -0,0 +1,86 @@
+package com.valentinpopescu.store.product.snapshot;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.common.CatalogView;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+public class CatalogSnapshot extends CatalogView<CatalogData> {
+
+    private static final int MIN_DELETED_ROWS_TO_COMPACT = 1024;
+
+    private final ProductProperties properties;
+
+    public CatalogSnapshot(ProductRepository repository, ProductProperties properties) {
+        super("Catalog snapshot", repository);
+        this.properties = properties;
+    }
+
+    public int size() {
+        return read(CatalogData::size);
+    }
+
+    public Optional<ProductResponse> find(String productCode) {
+        return read(data -> Optional.ofNullable(data.find(productCode)));
+    }
+
+    public List<ProductResponse> findAll() {
+        return read(data -> {
+            List<ProductResponse> products = new ArrayList<>(data.size());
+            data.forEach(products::add);
+            return products;
+        });
+    }
+
+    @Override
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        super.onProductChanged(event);
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        return properties.getSnapshot().isEnabled();
+    }
+
+    @Override
+    protected CatalogData newData(int expectedSize) {
+        return new CatalogData(expectedSize);
+    }
+
+    @Override
+    protected int size(CatalogData target) {
+        return target.size();
+    }
+
+    @Override
+    protected void apply(CatalogData target, ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> target.put(event.product());
+            case PRICE_CHANGED -> {
+                if (!target.changePrice(event.productCode(), event.product().price(), event.product().version())) {
+                    target.put(event.product());
+                }
+            }
+            case DELETED -> target.remove(event.productCode());
+        }
+    }
+
+    @Override
+    protected CatalogData compact(CatalogData current) {
+        return current.deletedRows() > Math.max(MIN_DELETED_ROWS_TO_COMPACT, current.size())
+                ? current.compact()
+                : current;
+    }
+}
@@ -0,0 +1,223 @@
+package com.valentinpopescu.store.product.stream;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.exceptions.ServiceUnavailableException;
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@Log4j2
+public class CatalogChangeStream implements SmartLifecycle {
+
+    static final String RESET_EVENT = "reset";
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final int bufferSize;
+    private final int replaySize;
+    private final int maxSubscribers;
+    private final Executor executor;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Deque<CatalogChange> recent = new ArrayDeque<>();
+    private final Object monitor = new Object();
+    private final Counter overflows;
+
+    private long sequence;
+    private volatile boolean running;
+
+    @Autowired
+    public CatalogChangeStream(ProductProperties properties, MeterRegistry registry) {
+        this(properties, registry, Executors.newCachedThreadPool(senderThreads()));
+    }
+
+    CatalogChangeStream(ProductProperties properties, MeterRegistry registry, Executor executor) {
+        this.bufferSize = properties.getStream().getBufferSize();
+        this.replaySize = properties.getStream().getReplaySize();
+        this.maxSubscribers = properties.getStream().getMaxSubscribers();
+        this.executor = executor;
+        this.overflows = Counter.builder("products.stream.overflows")
+                .description("Catalog change subscribers disconnected because they fell too far behind")
+                .register(registry);
+        Gauge.builder("products.stream.subscribers", subscribers, Set::size)
+                .description("Open catalog change streams")
+                .register(registry);
+    }
+
+    public void subscribe(SseEmitter emitter, String lastEventId) {
+        if (!running) {
+            throw new ServiceUnavailableException("Catalog change stream is not available");
+        }
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(ex -> close(subscriber));
+
+        synchronized (monitor) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new ServiceUnavailableException("Too many catalog change subscribers");
+            }
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.add(subscriber);
+        }
+        schedule(subscriber);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (monitor) {
+            CatalogChange change = CatalogChange.of(++sequence, event);
+            recent.addLast(change);
+            if (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.queue.offer(change)) {
+                    subscriber.overflowed = true;
+                }
+            }
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private void replay(Subscriber subscriber, String lastEventId) {
+        Long lastSequence = sequenceOf(lastEventId);
+        if (lastSequence == null) {
+            subscriber.overflowed = true;
+            return;
+        }
+        CatalogChange oldest = recent.peekFirst();
+        long firstMissed = lastSequence + 1;
+        if (lastSequence > sequence || (oldest != null && oldest.sequence() > firstMissed)
+                || sequence - lastSequence > bufferSize) {
+            subscriber.overflowed = true;
+            return;
+        }
+        for (CatalogChange change : recent) {
+            if (change.sequence() > lastSequence) {
+                subscriber.queue.add(change);
+            }
+        }
+    }
+
+    private Long sequenceOf(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            CatalogChange change;
+            while ((change = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(eventId(change.sequence()))
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+            if (subscriber.overflowed) {
+                overflows.increment();
+                log.warn("Catalog change subscriber fell behind, asking it to reload");
+                subscriber.emitter.send(SseEmitter.event().name(RESET_EVENT).data(""));
+                close(subscriber);
+                return;
+            }
+        } catch (IOException | IllegalStateException ex) {
+            close(subscriber);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (!subscriber.queue.isEmpty() || subscriber.overflowed) {
+            schedule(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static ThreadFactory senderThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "catalog-stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<CatalogChange> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean overflowed;
+
+        private Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
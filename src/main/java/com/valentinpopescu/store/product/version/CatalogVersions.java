@@ -0,0 +1,57 @@
+package com.valentinpopescu.store.product.version;
+
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class CatalogVersions {
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, String> productEtags = new ConcurrentHashMap<>();
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    public String catalogEtag() {
+        return catalogEtag(version.get());
+    }
+
+    public String catalogEtag(long version) {
+        return "W/\"" + instanceId + "-" + version + "\"";
+    }
+
+    public String productEtag(String productCode) {
+        return productEtags.get(productCode);
+    }
+
+    public String recordProductEtag(ProductResponse product, long seenVersion) {
+        String etag = ProductEtags.of(product);
+        productEtags.compute(product.productCode(), (code, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return version.get() == seenVersion ? etag : null;
+        });
+        return etag;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+        switch (event.type()) {
+            case CREATED, PRICE_CHANGED -> productEtags.put(event.productCode(), ProductEtags.of(event.product()));
+            case DELETED -> productEtags.remove(event.productCode());
+            case BULK_CHANGED -> productEtags.clear();
+        }
+    }
+}
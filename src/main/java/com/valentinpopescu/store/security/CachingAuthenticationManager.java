@@ -0,0 +1,113 @@
+package com.valentinpopescu.store.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsChecker;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+public class CachingAuthenticationManager implements AuthenticationManager {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationManager delegate;
+    private final UserDetailsService users;
+    private final UserDetailsChecker userChecker = new AccountStatusUserDetailsChecker();
+    private final SecretKeySpec key;
+    private final Cache<String, String> verified;
+
+    public CachingAuthenticationManager(AuthenticationManager delegate, UserDetailsService users,
+                                        long maximumSize, Duration timeToLive) {
+        this.delegate = delegate;
+        this.users = users;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .build();
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken token)
+                || !(token.getCredentials() instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        String cacheKey = cacheKey(token.getName(), password);
+        String verifiedPassword = verified.getIfPresent(cacheKey);
+        if (verifiedPassword != null) {
+            Authentication cached = fromCache(token, verifiedPassword);
+            if (cached != null) {
+                return cached;
+            }
+            verified.invalidate(cacheKey);
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result.getPrincipal() instanceof UserDetails user && user.getPassword() != null) {
+            verified.put(cacheKey, user.getPassword());
+        }
+        if (result instanceof CredentialsContainer container) {
+            container.eraseCredentials();
+        }
+        return result;
+    }
+
+    public void invalidateAll() {
+        verified.invalidateAll();
+    }
+
+    private Authentication fromCache(UsernamePasswordAuthenticationToken token, String verifiedPassword) {
+        UserDetails user;
+        try {
+            user = users.loadUserByUsername(token.getName());
+        } catch (UsernameNotFoundException ex) {
+            return null;
+        }
+        if (!verifiedPassword.equals(user.getPassword())) {
+            return null;
+        }
+        userChecker.check(user);
+
+        if (user instanceof CredentialsContainer container) {
+            container.eraseCredentials();
+        }
+        UsernamePasswordAuthenticationToken result =
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+        result.setDetails(token.getDetails());
+        return result;
+    }
+
+    private String cacheKey(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", ex);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+create sequence if not exists product_change_seq start with 1;
+
+insert into product_change_horizon (id, purged_through)
+select 1, 0 where not exists (select 1 from product_change_horizon where id = 1);
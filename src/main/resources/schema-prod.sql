@@ -0,0 +1,40 @@
+create sequence if not exists product_seq start with 1 increment by 50;
+create sequence if not exists product_change_seq start with 1;
+
+create table if not exists product (
+    id bigint not null,
+    product_code varchar(255) not null,
+    name varchar(255) not null,
+    price numeric(19,2) not null,
+    version bigint,
+    change_seq bigint,
+    primary key (id),
+    constraint uk_product_product_code unique (product_code)
+);
+create index if not exists idx_product_price on product (price, id);
+create index if not exists idx_product_change_seq on product (change_seq);
+
+create table if not exists product_tombstone (
+    id bigint generated by default as identity,
+    product_code varchar(255) not null,
+    change_seq bigint not null,
+    deleted_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+create index if not exists idx_product_tombstone_change_seq on product_tombstone (change_seq);
+
+create table if not exists product_change_horizon (
+    id integer not null,
+    purged_through bigint not null,
+    primary key (id)
+);
+
+create table if not exists price_history (
+    id bigint generated by default as identity,
+    product_code varchar(255) not null,
+    price numeric(19,2) not null,
+    product_version bigint,
+    changed_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+create index if not exists idx_price_history_product_code on price_history (product_code, id);
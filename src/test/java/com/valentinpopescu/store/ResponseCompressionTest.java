@@ -0,0 +1,111 @@
+package com.valentinpopescu.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.model.Product;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ResponseCompressionTest {
+
+    private static final int PRODUCTS = 100;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProductRepository repository;
+    @Autowired
+    private ApplicationEventPublisher events;
+    @Autowired
+    private ObjectMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        repository.saveAll(IntStream.range(0, PRODUCTS)
+                .mapToObj(i -> new Product("gz-" + i, "Compressed product " + i, new BigDecimal("10.00")))
+                .toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+        events.publishEvent(ProductChangedEvent.bulkChanged());
+    }
+
+    @Test
+    void findAllWithGzipAcceptEncodingResponseCompressedJson() throws Exception {
+        HttpResponse<byte[]> response = findAll(MediaType.APPLICATION_JSON_VALUE, "gzip");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertTrue(response.headers().firstValue(HttpHeaders.ETAG).orElseThrow().startsWith("W/"));
+        assertEquals(PRODUCTS, mapper.readValue(gunzip(response.body()), ProductResponse[].class).length);
+    }
+
+    @Test
+    void findAllWithCborAndGzipResponseCompressedCbor() throws Exception {
+        HttpResponse<byte[]> response = findAll(MediaType.APPLICATION_CBOR_VALUE, "gzip");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(MediaType.APPLICATION_CBOR_VALUE, response.headers().firstValue(HttpHeaders.CONTENT_TYPE).orElse(null));
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertEquals(PRODUCTS, new CBORMapper().readValue(gunzip(response.body()), ProductResponse[].class).length);
+    }
+
+    @Test
+    void findAllWithoutAcceptEncodingResponseUncompressed() throws Exception {
+        HttpResponse<byte[]> response = findAll(MediaType.APPLICATION_JSON_VALUE, "identity");
+
+        assertEquals(200, response.statusCode());
+        assertFalse(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isPresent());
+        assertEquals(PRODUCTS, mapper.readValue(response.body(), ProductResponse[].class).length);
+    }
+
+    private HttpResponse<byte[]> findAll(String accept, String acceptEncoding) throws IOException, InterruptedException {
+        String credentials = Base64.getEncoder().encodeToString("user:user123".getBytes(StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products"))
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + credentials)
+                .header(HttpHeaders.ACCEPT, accept)
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
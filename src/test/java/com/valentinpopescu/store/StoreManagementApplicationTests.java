@@ -1,28 +1,55 @@
 package com.valentinpopescu.store;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valentinpopescu.store.config.CacheConfig;
+import com.valentinpopescu.store.product.dto.CatalogChanges;
 import com.valentinpopescu.store.product.dto.PriceChangeRequest;
 import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
 import com.valentinpopescu.store.product.model.Product;
 import com.valentinpopescu.store.product.repository.ProductRepository;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+        "store.products.price-index.enabled=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 class StoreManagementApplicationTests {
 
     @Autowired
@@ -31,10 +58,16 @@ class StoreManagementApplicationTests {
     ObjectMapper mapper;
     @Autowired
     ProductRepository repository;
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    ApplicationEventPublisher events;
 
     @AfterEach
     void tearDown() {
         repository.deleteAll();
+        cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).clear();
+        events.publishEvent(ProductChangedEvent.bulkChanged());
     }
 
     @Test
@@ -127,6 +160,112 @@ class StoreManagementApplicationTests {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void userExportStreamsEveryProductAsNdjson() throws Exception {
+        repository.save(new Product("e1", "Kettle Philips", new BigDecimal("120.00")));
+        repository.save(new Product("e2", "Toaster Bosch", new BigDecimal("180.00")));
+
+        var result = mvc.perform(get("/api/products/export")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"productCode\":\"e1\"")))
+                .andExpect(content().string(containsString("\"productCode\":\"e2\"")));
+    }
+
+    @Test
+    void adminBulkCreateInsertsAllValidProducts() throws Exception {
+        repository.save(new Product("b0", "Existing", new BigDecimal("1.00")));
+        List<ProductCreateRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requests.add(new ProductCreateRequest("b" + i, "Bulk " + i, new BigDecimal("9.99")));
+        }
+
+        mvc.perform(post("/api/products/bulk")
+                        .with(httpBasic("admin","admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(119))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].error").value("Product already exists"))
+                .andExpect(jsonPath("$.items[119].product.productCode").value("b119"));
+
+        assertEquals(120, repository.count());
+    }
+
+    @Test
+    void findByProductCodeServesRepeatedLookupsFromCacheUntilPriceChanges() throws Exception {
+        repository.save(new Product("c1", "Blender Braun", new BigDecimal("75.00")));
+
+        mvc.perform(get("/api/products/{productCode}", "c1")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk());
+
+        repository.deleteAll();
+
+        mvc.perform(get("/api/products/{productCode}", "c1")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price", is(75.00)));
+
+        mvc.perform(get("/actuator/metrics/cache.gets")
+                        .param("tag", "name:" + CacheConfig.PRODUCTS_CACHE)
+                        .param("tag", "result:hit")
+                        .with(httpBasic("admin", "admin123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThanOrEqualTo(1.0)));
+
+        mvc.perform(get("/actuator/metrics/cache.gets")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isForbidden());
+
+        repository.save(new Product("c1", "Blender Braun", new BigDecimal("75.00")));
+        var change = new PriceChangeRequest(new BigDecimal("70.00"));
+        mvc.perform(patch("/api/products/{productCode}/price", "c1")
+                        .with(httpBasic("admin","admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(change)))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/products/{productCode}", "c1")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price", is(70.00)));
+    }
+
+    @Test
+    void adminScrapesServiceTimersAndProductCounters() throws Exception {
+        var create = new ProductCreateRequest("s1", "Speaker JBL", new BigDecimal("99.00"));
+        mvc.perform(post("/api/products")
+                        .with(httpBasic("admin","admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andExpect(status().isCreated());
+        mvc.perform(get("/api/products/{productCode}", "missing")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isNotFound());
+
+        mvc.perform(get("/actuator/prometheus")
+                        .with(httpBasic("admin", "admin123")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("product_service_seconds_bucket")))
+                .andExpect(content().string(containsString("products_changes_total{change=\"created\"}")))
+                .andExpect(content().string(containsString("products_lookups_not_found_total")))
+                .andExpect(content().string(containsString("products_catalog_size")))
+                .andExpect(content().string(containsString("http_server_requests_queries_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections")))
+                .andExpect(content().string(containsString("hibernate_query_executions")));
+
+        mvc.perform(get("/actuator/prometheus")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     void adminCreateBadRequest() throws Exception {
         String invalidBody = """
@@ -157,6 +296,306 @@ class StoreManagementApplicationTests {
                         .with(httpBasic("admin","admin123"))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(request)))
-                .andExpect(status().isBadRequest());
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Product already exists")));
+    }
+
+    @Test
+    void userSearchesProductsKeptInSyncWithWrites() throws Exception {
+        var create = new ProductCreateRequest("s-42", "Vacuum cleaner Dyson V15", new BigDecimal("650.00"));
+        mvc.perform(post("/api/products")
+                        .with(httpBasic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andExpect(status().isCreated());
+
+        mvc.perform(get("/api/products/search")
+                        .param("q", "dyson vac")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].productCode", is("s-42")));
+
+        mvc.perform(delete("/api/products/{productCode}", "s-42")
+                        .with(httpBasic("admin", "admin123")))
+                .andExpect(status().isNoContent());
+
+        mvc.perform(get("/api/products/search")
+                        .param("q", "dyson")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void userFindsProductsByPriceRangeKeptInSyncWithWrites() throws Exception {
+        for (var create : List.of(
+                new ProductCreateRequest("r-1", "Kettle", new BigDecimal("40.00")),
+                new ProductCreateRequest("r-2", "Toaster", new BigDecimal("60.00")),
+                new ProductCreateRequest("r-3", "Blender", new BigDecimal("90.00")))) {
+            mvc.perform(post("/api/products")
+                            .with(httpBasic("admin", "admin123"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(create)))
+                    .andExpect(status().isCreated());
+        }
+
+        mvc.perform(get("/api/products/by-price")
+                        .param("minPrice", "50")
+                        .param("direction", "DESC")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].productCode", contains("r-3", "r-2")));
+
+        mvc.perform(patch("/api/products/{productCode}/price", "r-3")
+                        .with(httpBasic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal("30.00")))))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/products/by-price")
+                        .param("maxPrice", "50")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].productCode", contains("r-3", "r-1")));
+    }
+
+    @Test
+    void priceChangesAreRecordedInPriceHistoryNewestFirst() throws Exception {
+        repository.save(new Product("h-1", "Grinder Makita", new BigDecimal("80.00")));
+
+        for (String price : List.of("85.00", "95.00")) {
+            mvc.perform(patch("/api/products/{productCode}/price", "h-1")
+                            .with(httpBasic("admin", "admin123"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal(price)))))
+                    .andExpect(status().isOk());
+        }
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                mvc.perform(get("/api/products/{productCode}/price-history", "h-1")
+                                .with(httpBasic("user", "user123")))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$[*].price", contains(95.00, 85.00)))
+                        .andExpect(jsonPath("$[*].version", contains(2, 1))));
+
+        mvc.perform(get("/api/products/{productCode}/price-history", "missing")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void userReceivesCatalogChangesAsServerSentEventsAndResumes() throws Exception {
+        MvcResult live = mvc.perform(get("/api/products/events")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        var create = new ProductCreateRequest("e-1", "Router Asus", new BigDecimal("150.00"));
+        mvc.perform(post("/api/products")
+                        .with(httpBasic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(create)))
+                .andExpect(status().isCreated());
+
+        Pattern created = Pattern.compile("id:(\\p{XDigit}{8}-(\\d+))\ndata:\\{\"sequence\":\\2,\"type\":\"CREATED\",\"productCode\":\"e-1\"");
+        String createdId = await().atMost(Duration.ofSeconds(5)).until(() -> {
+            Matcher matcher = created.matcher(live.getResponse().getContentAsString());
+            return matcher.find() ? matcher.group(1) : null;
+        }, Objects::nonNull);
+
+        mvc.perform(patch("/api/products/{productCode}/price", "e-1")
+                        .with(httpBasic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal("140.00")))))
+                .andExpect(status().isOk());
+
+        MvcResult resumed = mvc.perform(get("/api/products/events")
+                        .header("Last-Event-ID", createdId)
+                        .with(httpBasic("user", "user123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(resumed.getResponse().getContentAsString(),
+                        containsString("\"type\":\"PRICE_CHANGED\",\"productCode\":\"e-1\"")));
+    }
+
+    @Test
+    void userSyncsOnlyChangesSinceLastSequence() throws Exception {
+        long since = changesHead();
+
+        for (var create : List.of(
+                new ProductCreateRequest("d-1", "Monitor Dell", new BigDecimal("300.00")),
+                new ProductCreateRequest("d-2", "Keyboard Logitech", new BigDecimal("80.00")))) {
+            mvc.perform(post("/api/products")
+                            .with(httpBasic("admin", "admin123"))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(mapper.writeValueAsString(create)))
+                    .andExpect(status().isCreated());
+        }
+        mvc.perform(patch("/api/products/{productCode}/price", "d-1")
+                        .with(httpBasic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal("280.00")))))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/api/products/{productCode}", "d-2")
+                        .with(httpBasic("admin", "admin123")))
+                .andExpect(status().isNoContent());
+
+        String body = mvc.perform(get("/api/products/changes")
+                        .param("since", String.valueOf(since))
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[*].productCode", contains("d-1", "d-2")))
+                .andExpect(jsonPath("$.changes[*].type", contains("PRICE_CHANGED", "DELETED")))
+                .andExpect(jsonPath("$.changes[0].product.price", is(280.00)))
+                .andExpect(jsonPath("$.hasMore", is(false)))
+                .andReturn().getResponse().getContentAsString();
+
+        var page = mapper.readValue(body, CatalogChanges.class);
+        assertThat(page.changes().get(0).sequence(), greaterThan(since));
+        assertThat(page.changes().get(1).sequence(), greaterThan(page.changes().get(0).sequence()));
+        assertEquals(page.changes().get(1).sequence(), page.nextSince());
+    }
+
+    @Test
+    void adminImportsCsvCatalogAndPollsJobUntilCompleted() throws Exception {
+        repository.save(new Product("i-1", "Old name", new BigDecimal("1.00")));
+        long since = changesHead();
+
+        String location = mvc.perform(multipart("/api/products/import")
+                        .file(new MockMultipartFile("file", "catalog.csv", "text/csv", """
+                                productCode,name,price
+                                i-1,Fridge Bosch,450.00
+                                i-2,Oven Miele,900.00
+                                i-3,Broken,free
+                                """.getBytes()))
+                        .with(httpBasic("admin", "admin123")))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                mvc.perform(get(location)
+                                .with(httpBasic("admin", "admin123")))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.status", is("COMPLETED")))
+                        .andExpect(jsonPath("$.processedRows", is(3)))
+                        .andExpect(jsonPath("$.importedRows", is(2)))
+                        .andExpect(jsonPath("$.errors[0].productCode", is("i-3"))));
+
+        mvc.perform(get("/api/products/{productCode}", "i-1")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Fridge Bosch")))
+                .andExpect(jsonPath("$.version", is(1)));
+        mvc.perform(get("/api/products/changes")
+                        .param("since", String.valueOf(since))
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[*].productCode", contains("i-1", "i-2")))
+                .andExpect(jsonPath("$.changes[*].type", contains("PRICE_CHANGED", "CREATED")));
+    }
+
+    @Test
+    void adminChangePriceWithStaleIfMatchResponse412() throws Exception {
+        repository.save(new Product("v1", "Drill Bosch", new BigDecimal("120.00")));
+
+        String etag = mvc.perform(get("/api/products/{productCode}", "v1")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(0)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String body = mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal("110.00")));
+        mvc.perform(patch("/api/products/{productCode}/price", "v1")
+                        .with(httpBasic("admin", "admin123"))
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(1)))
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+
+        mvc.perform(patch("/api/products/{productCode}/price", "v1")
+                        .with(httpBasic("admin", "admin123"))
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal("90.00")))))
+                .andExpect(status().isPreconditionFailed());
+
+        mvc.perform(get("/api/products/{productCode}", "v1")
+                        .with(httpBasic("user", "user123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price", is(110.00)));
+    }
+
+    @Test
+    void bearerTokenAuthorizesRequestsWithRolesFromCredentials() throws Exception {
+        repository.save(new Product("t1", "Tablet Lenovo", new BigDecimal("250.00")));
+        String userToken = token("user", "user123");
+        String adminToken = token("admin", "admin123");
+
+        mvc.perform(get("/api/products/{productCode}", "t1")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productCode", is("t1")));
+
+        mvc.perform(patch("/api/products/{productCode}/price", "t1")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal("200.00")))))
+                .andExpect(status().isForbidden());
+
+        mvc.perform(patch("/api/products/{productCode}/price", "t1")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new PriceChangeRequest(new BigDecimal("200.00")))))
+                .andExpect(status().isOk());
+
+        mvc.perform(post("/api/auth/token")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + userToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void invalidBearerTokenResponse401() throws Exception {
+        String token = token("admin", "admin123");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        mvc.perform(get("/api/products")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+
+        mvc.perform(post("/api/auth/token")
+                        .with(httpBasic("admin", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private long changesHead() throws Exception {
+        long since = 0;
+        boolean hasMore = true;
+        while (hasMore) {
+            String body = mvc.perform(get("/api/products/changes")
+                            .param("since", String.valueOf(since))
+                            .param("limit", "500")
+                            .with(httpBasic("user", "user123")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            var page = mapper.readValue(body, CatalogChanges.class);
+            since = page.nextSince();
+            hasMore = page.hasMore();
+        }
+        return since;
+    }
+
+    private String token(String username, String password) throws Exception {
+        String body = mvc.perform(post("/api/auth/token")
+                        .with(httpBasic(username, password)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType", is("Bearer")))
+                .andExpect(jsonPath("$.expiresIn", is(900)))
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(body).get("accessToken").asText();
     }
 }
@@ -0,0 +1,80 @@
+package com.valentinpopescu.store.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.valentinpopescu.store.datasource.RecentEvictions;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCaffeineCacheTest {
+
+    private RecentEvictions recentEvictions;
+    private ProductCaffeineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        recentEvictions = new RecentEvictions(Duration.ofMinutes(1));
+        cache = new ProductCaffeineCache(CacheConfig.PRODUCTS_CACHE, Caffeine.newBuilder().build(), false,
+                recentEvictions);
+    }
+
+    @Test
+    void putShouldKeepTheNewerVersionOfTheSameProduct() {
+        cache.put("a", product(1L, 2L));
+        cache.put("a", product(1L, 1L));
+
+        assertEquals(2L, cache.get("a", ProductResponse.class).version());
+
+        cache.put("a", product(1L, 3L));
+        assertEquals(3L, cache.get("a", ProductResponse.class).version());
+    }
+
+    @Test
+    void putShouldReplaceADifferentProductWithTheSameCode() {
+        cache.put("a", product(1L, 5L));
+        cache.put("a", product(2L, 0L));
+
+        assertEquals(2L, cache.get("a", ProductResponse.class).id());
+    }
+
+    @Test
+    void evictDuringAFillShouldLeaveNoEntry() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ProductResponse> fill = CompletableFuture.supplyAsync(() -> cache.get("a", () -> {
+            loading.countDown();
+            release.await();
+            return product(1L, 1L);
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> evict = CompletableFuture.runAsync(() -> cache.evict("a"));
+        release.countDown();
+
+        assertEquals(1L, fill.get(5, TimeUnit.SECONDS).version());
+        evict.get(5, TimeUnit.SECONDS);
+        assertNull(cache.get("a"));
+        assertTrue(recentEvictions.isRecent("a"));
+    }
+
+    @Test
+    void clearShouldMarkEveryKeyAsRecentlyEvicted() {
+        assertFalse(recentEvictions.isRecent("b"));
+
+        cache.clear();
+
+        assertTrue(recentEvictions.isRecent("b"));
+    }
+
+    private static ProductResponse product(Long id, Long version) {
+        return new ProductResponse(id, "a", "name", new BigDecimal("1.00"), version);
+    }
+}
@@ -0,0 +1,164 @@
+package com.valentinpopescu.store.datasource;
+
+import com.valentinpopescu.store.config.CacheConfig;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeRequest;
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.dto.PriceAdjustmentType;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import com.valentinpopescu.store.product.response.CatalogResponseCache;
+import com.valentinpopescu.store.product.search.ProductSearchIndex;
+import com.valentinpopescu.store.product.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "store.datasource.routing.enabled=true",
+        "store.datasource.routing.replicas[0].url=jdbc:h2:mem:routing-replica;IFEXISTS=TRUE",
+        "store.datasource.routing.replicas[0].username=sa",
+        "store.datasource.routing.read-your-writes-window=1m",
+        "store.datasource.routing.health-check-interval=1h"
+})
+class ReplicaRoutingDataSourceTest {
+
+    private static final JdbcTemplate REPLICA =
+            new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @Autowired
+    ProductService service;
+    @Autowired
+    JdbcTemplate primary;
+    @Autowired
+    ReplicaRoutingDataSource routing;
+    @Autowired
+    ProductSearchIndex searchIndex;
+    @Autowired
+    ProductRepository repository;
+    @Autowired
+    CatalogResponseCache listCache;
+    @Autowired
+    MeterRegistry registry;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        REPLICA.execute("drop all objects");
+        primary.queryForList("script nodata", String.class).forEach(REPLICA::execute);
+        REPLICA.update("insert into product (id, product_code, name, price, version, change_seq) values (1, 'replica-only', 'name', 1.00, 0, 1)");
+        routing.checkReplicas();
+    }
+
+    @Test
+    void readOnlyCallsGoToReplicaWhileWritesGoToPrimary() {
+        service.add(new ProductCreateRequest("primary-only", "name", new BigDecimal("2.00")));
+
+        assertEquals(List.of("replica-only"), codes(service.findAll()));
+        assertEquals("replica-only", service.findByProductCode("replica-only").productCode());
+        assertEquals(1, primary.queryForObject("select count(*) from product where product_code = 'primary-only'", Integer.class));
+    }
+
+    @Test
+    @WithMockUser(username = "writer", roles = "ADMIN")
+    void readYourWritesWindowSendsTheWritersReadsToPrimary() {
+        service.add(new ProductCreateRequest("written", "name", new BigDecimal("2.00")));
+
+        assertEquals(true, codes(service.findAll()).contains("written"));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("reader", null, List.of()));
+        assertEquals(List.of("replica-only"), codes(service.findAll()));
+    }
+
+    @Test
+    void changeFeedReadsThePrimary() {
+        service.add(new ProductCreateRequest("changed", "name", new BigDecimal("2.00")));
+
+        List<String> changed = service.findChanges(0L, 1000).changes().stream()
+                .map(CatalogChange::productCode)
+                .toList();
+
+        assertTrue(changed.contains("changed"));
+        assertFalse(changed.contains("replica-only"));
+    }
+
+    @Test
+    void listCacheRebuildReadsThePrimary() {
+        service.add(new ProductCreateRequest("listed", "name", new BigDecimal("2.00")));
+
+        String body = new String(listCache.get(MediaType.APPLICATION_JSON, false).bytes(), StandardCharsets.UTF_8);
+
+        assertTrue(body.contains("\"listed\""));
+        assertFalse(body.contains("\"replica-only\""));
+    }
+
+    @Test
+    void onPrimaryPinsReadOnlyTransactionsToThePrimary() {
+        service.add(new ProductCreateRequest("pinned", "name", new BigDecimal("2.00")));
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertEquals(false, readOnly.execute(status -> repository.existsByProductCode("pinned")));
+        assertEquals(true, ReplicaRoutingDataSource.onPrimary(
+                () -> readOnly.execute(status -> repository.existsByProductCode("pinned"))));
+    }
+
+    @Test
+    void catalogViewReloadReadsThePrimaryWhileTheReplicaLags() {
+        service.addAll(List.of(new ProductCreateRequest("lagging", "Lagging product", new BigDecimal("2.00"))));
+
+        await().atMost(Duration.ofSeconds(5)).until(searchIndex::isReady);
+        assertEquals(List.of("lagging"), codes(searchIndex.search("lagging", 10)));
+        assertEquals(List.of(), codes(searchIndex.search("replica-only", 10)));
+    }
+
+    @Test
+    void cacheFillAfterAnEvictionReadsThePrimary() {
+        service.add(new ProductCreateRequest("repriced", "name", new BigDecimal("2.00")));
+        service.changePrices(new BulkPriceChangeRequest(List.of("repriced"), null, null, null,
+                PriceAdjustmentType.ABSOLUTE, BigDecimal.ONE));
+
+        assertEquals(new BigDecimal("3.00"), service.findByProductCode("repriced").price());
+        assertNotNull(registry.find("cache.gets").tag("name", CacheConfig.PRODUCTS_CACHE).meter());
+    }
+
+    @Test
+    @DirtiesContext
+    void unhealthyReplicaFallsBackToPrimary() {
+        service.add(new ProductCreateRequest("fallback", "name", new BigDecimal("2.00")));
+
+        REPLICA.execute("shutdown");
+        routing.checkReplicas();
+
+        assertEquals(true, codes(service.findAll()).contains("fallback"));
+    }
+
+    private static List<String> codes(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::productCode).toList();
+    }
+}
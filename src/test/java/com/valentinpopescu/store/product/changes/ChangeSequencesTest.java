@@ -0,0 +1,90 @@
+package com.valentinpopescu.store.product.changes;
+
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeSequencesTest {
+
+    @Mock
+    private ProductRepository repository;
+    private ChangeSequences sequences;
+
+    @BeforeEach
+    void setUp() {
+        sequences = new ChangeSequences(repository);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void watermarkShouldStopBelowTheOldestWriterInFlight() {
+        when(repository.nextChangeSequence())
+                .thenReturn(5L);
+        when(repository.nextChangeSequences(2))
+                .thenReturn(new long[] { 7L, 8L });
+
+        assertEquals(5L, sequences.next());
+        List<TransactionSynchronization> first = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(0L, sequences.watermark());
+
+        complete(first);
+        TransactionSynchronizationManager.initSynchronization();
+        assertEquals(5L, sequences.watermark());
+
+        assertArrayEquals(new long[] { 7L, 8L }, sequences.next(2));
+        assertEquals(5L, sequences.watermark());
+
+        complete(TransactionSynchronizationManager.getSynchronizations());
+        assertEquals(8L, sequences.watermark());
+    }
+
+    @Test
+    void numberingShouldHoldTheWatermarkUntilTheStatementCommits() {
+        when(repository.findHighestChangeSeq())
+                .thenReturn(9L);
+        when(repository.nextChangeSequence())
+                .thenReturn(10L, 14L);
+        assertEquals(9L, sequences.watermark());
+
+        int updated = sequences.numbering(() -> {
+            assertEquals(9L, sequences.watermark());
+            return 3;
+        });
+
+        assertEquals(3, updated);
+        assertEquals(9L, sequences.watermark());
+        complete(TransactionSynchronizationManager.getSynchronizations());
+        assertEquals(14L, sequences.watermark());
+    }
+
+    @Test
+    void nextShouldRequireATransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThrows(IllegalStateException.class, () -> sequences.next());
+    }
+
+    private static void complete(List<TransactionSynchronization> synchronizations) {
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
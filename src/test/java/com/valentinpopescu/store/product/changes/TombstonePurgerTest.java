@@ -0,0 +1,66 @@
+package com.valentinpopescu.store.product.changes;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.repository.ProductTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TombstonePurgerTest {
+
+    @Mock
+    private ProductTombstoneRepository tombstoneRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private TombstonePurger purger;
+
+    @BeforeEach
+    void setUp() {
+        ProductProperties properties = new ProductProperties();
+        properties.getChanges().setTombstoneRetention(Duration.ofDays(2));
+        when(transactionManager.getTransaction(any()))
+                .thenReturn(new SimpleTransactionStatus());
+        purger = new TombstonePurger(tombstoneRepository, transactionManager, properties);
+    }
+
+    @Test
+    void purgeShouldRecordTheHorizonBeforeDeletingExpiredTombstones() {
+        Instant before = Instant.now().minus(Duration.ofDays(2));
+        when(tombstoneRepository.findLastChangeSeqDeletedBefore(any()))
+                .thenReturn(40L);
+        when(tombstoneRepository.deleteThrough(40L))
+                .thenReturn(3);
+
+        assertEquals(3, purger.purge());
+
+        var inOrder = inOrder(tombstoneRepository);
+        inOrder.verify(tombstoneRepository).findLastChangeSeqDeletedBefore(argThat(cutoff -> !cutoff.isBefore(before)));
+        inOrder.verify(tombstoneRepository).advancePurgedThrough(40L);
+        inOrder.verify(tombstoneRepository).deleteThrough(40L);
+    }
+
+    @Test
+    void purgeShouldKeepTheHorizonWhenNothingExpired() {
+        when(tombstoneRepository.findLastChangeSeqDeletedBefore(any()))
+                .thenReturn(null);
+
+        assertEquals(0, purger.purge());
+
+        verify(tombstoneRepository, never()).advancePurgedThrough(anyLong());
+        verify(tombstoneRepository, never()).deleteThrough(anyLong());
+    }
+}
@@ -1,20 +1,52 @@
 package com.valentinpopescu.store.product.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.config.WebConfig;
 import com.valentinpopescu.store.exceptions.GlobalExceptionHandler;
+import com.valentinpopescu.store.exceptions.NotFoundException;
+import com.valentinpopescu.store.exceptions.PreconditionFailedException;
+import com.valentinpopescu.store.exceptions.ServiceUnavailableException;
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.BulkCreateItem;
+import com.valentinpopescu.store.product.dto.BulkCreateResponse;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeRequest;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeResponse;
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.dto.CatalogChanges;
+import com.valentinpopescu.store.product.dto.ImportJobResponse;
+import com.valentinpopescu.store.product.dto.ImportRowError;
+import com.valentinpopescu.store.product.dto.ImportStatus;
+import com.valentinpopescu.store.product.dto.PriceAdjustmentType;
 import com.valentinpopescu.store.product.dto.PriceChangeRequest;
+import com.valentinpopescu.store.product.dto.PriceHistoryItem;
 import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductPage;
 import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.importer.ImportSubmission;
+import com.valentinpopescu.store.product.importer.ProductImporter;
+import com.valentinpopescu.store.product.response.CatalogResponseCache;
 import com.valentinpopescu.store.product.service.ProductService;
+import com.valentinpopescu.store.product.stream.CatalogChangeStream;
+import com.valentinpopescu.store.product.version.CatalogVersions;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -22,28 +54,53 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
 @WebMvcTest(ProductController.class)
-@Import({ ProductControllerTest.TestSecurityConfig.class, GlobalExceptionHandler.class })
+@EnableConfigurationProperties(ProductProperties.class)
+@Import({ ProductControllerTest.TestSecurityConfig.class, GlobalExceptionHandler.class, CatalogVersions.class, WebConfig.class,
+        CatalogResponseCache.class })
 class ProductControllerTest {
 
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @MockitoBean
     ProductService service;
+    @MockitoBean
+    CatalogChangeStream changes;
+    @MockitoBean
+    ProductImporter importer;
 
     @Autowired
     private MockMvc mvc;
     @Autowired
     private ObjectMapper mapper;
+    @Autowired
+    private CatalogVersions versions;
+
+    @BeforeEach
+    void setUp() {
+        versions.onProductChanged(ProductChangedEvent.bulkChanged());
+    }
 
     @Test
     @WithMockUser(roles = "USER")
@@ -63,7 +120,7 @@ class ProductControllerTest {
     @WithMockUser(roles = "ADMIN")
     void addProductWithAdminResultCreated() throws Exception {
         var request = new ProductCreateRequest("x1", "Shampoo Clear", new BigDecimal("25.50"));
-        var response = new ProductResponse(10L, "x1", "Shampoo Clear", new BigDecimal("25.50"));
+        var response = new ProductResponse(10L, "x1", "Shampoo Clear", new BigDecimal("25.50"), 0L);
         when(service.add(any()))
                 .thenReturn(response);
 
@@ -95,12 +152,44 @@ class ProductControllerTest {
         verify(service, never()).add(any());
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void addAllWithAdminResultOk() throws Exception {
+        var requests = List.of(
+                new ProductCreateRequest("x1", "Shampoo Clear", new BigDecimal("25.50")),
+                new ProductCreateRequest("x1", "Shampoo Clear", new BigDecimal("25.50")));
+        when(service.addAll(any()))
+                .thenReturn(new BulkCreateResponse(1, 1, List.of(
+                        BulkCreateItem.created(0, new ProductResponse(10L, "x1", "Shampoo Clear", new BigDecimal("25.50"), 0L)),
+                        BulkCreateItem.failed(1, "x1", "Duplicate product code in request"))));
+
+        mvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.items[0].product.id").value(10))
+                .andExpect(jsonPath("$.items[1].error").value("Duplicate product code in request"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void addAllWithUserResultForbidden() throws Exception {
+        mvc.perform(post("/api/products/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isForbidden());
+
+        verify(service, never()).addAll(any());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void findByProductCodeWithUserResultOk() throws Exception {
         when(service.findByProductCode("a1"))
                 .thenReturn(new ProductResponse(
-                        1L, "a1", "Chainsaw Stihl", new BigDecimal("250.00")));
+                        1L, "a1", "Chainsaw Stihl", new BigDecimal("250.00"), 0L));
 
         mvc.perform(get("/api/products/{productCode}", "a1"))
                 .andExpect(status().isOk())
@@ -114,8 +203,8 @@ class ProductControllerTest {
     void findAllProductsWithUserResultOk() throws Exception {
         when(service.findAll())
                 .thenReturn(List.of(
-                        new ProductResponse(1L, "p1", "Samsung TV", new BigDecimal("800.00")),
-                        new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"))
+                        new ProductResponse(1L, "p1", "Samsung TV", new BigDecimal("800.00"), 0L),
+                        new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"), 0L)
                 )
         );
 
@@ -129,6 +218,414 @@ class ProductControllerTest {
         verify(service).findAll();
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void findAllWithMatchingEtagResultNotModifiedUntilCatalogChanges() throws Exception {
+        when(service.findAll())
+                .thenReturn(List.of(new ProductResponse(1L, "p1", "Samsung TV", new BigDecimal("800.00"), 0L)));
+
+        String etag = mvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/products")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(service, times(1)).findAll();
+
+        versions.onProductChanged(ProductChangedEvent.deleted("p1"));
+
+        mvc.perform(get("/api/products")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+        verify(service, times(2)).findAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findAllWithCborAcceptResponseCbor() throws Exception {
+        List<ProductResponse> products = List.of(
+                new ProductResponse(1L, "p1", "Samsung TV", new BigDecimal("800.00"), 0L),
+                new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"), 1L));
+        when(service.findAll()).thenReturn(products);
+
+        byte[] body = mvc.perform(get("/api/products")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, Matchers.startsWith("W/")))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(products, List.of(new CBORMapper().readValue(body, ProductResponse[].class)));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findAllRepeatedReadsServeEncodedCatalogUntilCatalogChanges() throws Exception {
+        when(service.findAll())
+                .thenReturn(List.of(new ProductResponse(1L, "p1", "Samsung TV", new BigDecimal("800.00"), 0L)));
+
+        for (int i = 0; i < 3; i++) {
+            mvc.perform(get("/api/products"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$[*].productCode", Matchers.contains("p1")));
+        }
+        verify(service, times(1)).findAll();
+
+        when(service.findAll())
+                .thenReturn(List.of(new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"), 0L)));
+        versions.onProductChanged(ProductChangedEvent.deleted("p1"));
+
+        mvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].productCode", Matchers.contains("p2")));
+        verify(service, times(2)).findAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findAllWithGzipAcceptEncodingResponsePrecompressedCatalog() throws Exception {
+        when(service.findAll()).thenReturn(IntStream.range(0, 50)
+                .mapToObj(i -> new ProductResponse((long) i, "p" + i, "Product " + i, new BigDecimal("10.00"), 0L))
+                .toList());
+
+        byte[] body = mvc.perform(get("/api/products")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(50, mapper.readValue(in, ProductResponse[].class).length);
+        }
+
+        mvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$", hasSize(50)));
+        verify(service, times(1)).findAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findByProductCodeWithSmileAcceptResponseSmile() throws Exception {
+        ProductResponse product = new ProductResponse(1L, "p1", "Samsung TV", new BigDecimal("800.00"), 0L);
+        when(service.findByProductCode("p1")).thenReturn(product);
+
+        byte[] body = mvc.perform(get("/api/products/{productCode}", "p1")
+                        .accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-0\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(product, new SmileMapper().readValue(body, ProductResponse.class));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findByProductCodeWithMatchingEtagResultNotModifiedUntilProductChanges() throws Exception {
+        var product = new ProductResponse(1L, "e1", "Chainsaw Stihl", new BigDecimal("250.00"), 0L);
+        when(service.findByProductCode("e1"))
+                .thenReturn(product);
+
+        String etag = mvc.perform(get("/api/products/{productCode}", "e1"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/products/{productCode}", "e1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        verify(service, times(1)).findByProductCode("e1");
+
+        var changed = new ProductResponse(1L, "e1", "Chainsaw Stihl", new BigDecimal("199.00"), 1L);
+        versions.onProductChanged(ProductChangedEvent.priceChanged(changed));
+        when(service.findByProductCode("e1"))
+                .thenReturn(changed);
+
+        mvc.perform(get("/api/products/{productCode}", "e1")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-1\""))
+                .andExpect(header().string(HttpHeaders.ETAG, versions.productEtag("e1")));
+        verify(service, times(2)).findByProductCode("e1");
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findPageWithUserResultOk() throws Exception {
+        when(service.findPage(1, "cursor"))
+                .thenReturn(new ProductPage(
+                        List.of(new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"), 0L)),
+                        "next"
+                )
+        );
+
+        mvc.perform(get("/api/products")
+                        .param("size", "1")
+                        .param("after", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].productCode").value("p2"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(service).findPage(1, "cursor");
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void searchWithUserResultOk() throws Exception {
+        when(service.search("iphone", 20))
+                .thenReturn(List.of(new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"), 0L)));
+
+        mvc.perform(get("/api/products/search")
+                        .param("q", "iphone"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productCode").value("p2"));
+
+        verify(service, never()).findByProductCode(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void searchWithBlankQueryOrTooLargeLimitThrowsBadRequest() throws Exception {
+        mvc.perform(get("/api/products/search")
+                        .param("q", " "))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/products/search")
+                        .param("q", "tv")
+                        .param("limit", String.valueOf(ProductController.MAX_SEARCH_LIMIT + 1)))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).search(any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findChangesWithUserResultOk() throws Exception {
+        var change = new CatalogChange(8L, ProductChangedEvent.ChangeType.DELETED, "p1", null);
+        when(service.findChanges(7L, 100))
+                .thenReturn(new CatalogChanges(List.of(change), 8L, false, false));
+
+        mvc.perform(get("/api/products/changes")
+                        .param("since", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].type").value("DELETED"))
+                .andExpect(jsonPath("$.nextSince").value(8))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.resync").value(false));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findChangesWithNegativeSinceThrowsBadRequest() throws Exception {
+        mvc.perform(get("/api/products/changes")
+                        .param("since", "-1"))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).findChanges(anyLong(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findPriceHistoryWithUserResultOk() throws Exception {
+        when(service.findPriceHistory("p1", 50))
+                .thenReturn(List.of(new PriceHistoryItem(new BigDecimal("900.00"), 2L, Instant.parse("2025-01-01T10:00:00Z"))));
+
+        mvc.perform(get("/api/products/{productCode}/price-history", "p1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].price").value(900.00))
+                .andExpect(jsonPath("$[0].version").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findByPriceRangeWithUserResultOk() throws Exception {
+        when(service.findByPriceRange(new BigDecimal("100"), null, Sort.Direction.DESC, 20))
+                .thenReturn(List.of(new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"), 0L)));
+
+        mvc.perform(get("/api/products/by-price")
+                        .param("minPrice", "100")
+                        .param("direction", "DESC"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productCode").value("p2"));
+
+        verify(service, never()).findByProductCode(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findByPriceRangeWithInvalidParametersThrowsBadRequest() throws Exception {
+        mvc.perform(get("/api/products/by-price")
+                        .param("minPrice", "-1"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/products/by-price")
+                        .param("direction", "sideways"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value for parameter direction"));
+        mvc.perform(get("/api/products/by-price")
+                        .param("limit", String.valueOf(ProductController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).findByPriceRange(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void findPageWithTooLargeSizeThrowsBadRequest() throws Exception {
+        mvc.perform(get("/api/products")
+                        .param("size", String.valueOf(ProductController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+
+        verify(service, never()).findPage(anyInt(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void eventsWithUserOpensStreamResumingFromLastEventId() throws Exception {
+        mvc.perform(get("/api/products/events")
+                        .header("Last-Event-ID", "1a2b3c4d-42"))
+                .andExpect(request().asyncStarted());
+
+        verify(changes).subscribe(any(), eq("1a2b3c4d-42"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void eventsWhenStreamUnavailableResponse503() throws Exception {
+        doThrow(new ServiceUnavailableException("Too many catalog change subscribers"))
+                .when(changes).subscribe(any(), any());
+
+        mvc.perform(get("/api/products/events"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.message").value("Too many catalog change subscribers"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importFileWithAdminResultAcceptedWithQueuedJobAndLocation() throws Exception {
+        when(importer.submit(any()))
+                .thenReturn(submission("job-1"));
+
+        MvcResult result = mvc.perform(multipart("/api/products/import")
+                        .file(new MockMultipartFile("file", "catalog.csv", "text/csv",
+                                "productCode,name,price\na1,TV,10.00\n".getBytes())))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/products/import/job-1"))
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(importer).submit(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importCsvBodyWithAdminResultAccepted() throws Exception {
+        when(importer.submit(any()))
+                .thenReturn(submission("job-2"));
+
+        MvcResult result = mvc.perform(post("/api/products/import")
+                        .contentType("text/csv")
+                        .content("productCode,name,price\na1,TV,10.00\n"))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/products/import/job-2"))
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.id").value("job-2"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void importWhenNoPermitIsLeftResponse503() throws Exception {
+        when(importer.submit(any()))
+                .thenThrow(new ServiceUnavailableException("Too many catalog imports in progress"));
+
+        mvc.perform(post("/api/products/import")
+                        .contentType("text/csv")
+                        .content("productCode,name,price\n"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void importWithUserResultForbidden() throws Exception {
+        mvc.perform(post("/api/products/import")
+                        .contentType("text/csv")
+                        .content("productCode,name,price\n"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(importer);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void findImportReturnsProgressAndRowErrors() throws Exception {
+        when(importer.find("job-3"))
+                .thenReturn(new ImportJobResponse("job-3", ImportStatus.COMPLETED, 3, 2, 1, 0,
+                        List.of(new ImportRowError(2, "b1", "price: must be a number")), List.of(), null,
+                        Instant.now(), Instant.now()));
+
+        mvc.perform(get("/api/products/import/{jobId}", "job-3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedRows").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("price: must be a number"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void findImportWhenUnknownResponse404() throws Exception {
+        when(importer.find("missing"))
+                .thenThrow(new NotFoundException("Import job not found"));
+
+        mvc.perform(get("/api/products/import/{jobId}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void exportWithUserStreamsNdjson() throws Exception {
+        doAnswer(inv -> {
+            Consumer<ProductResponse> consumer = inv.getArgument(0);
+            consumer.accept(new ProductResponse(1L, "p1", "Samsung TV", new BigDecimal("800.00"), 0L));
+            consumer.accept(new ProductResponse(2L, "p2", "iPhone 15", new BigDecimal("1500.00"), 0L));
+            return null;
+        }).when(service).exportAll(any());
+
+        var result = mvc.perform(get("/api/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("p1", mapper.readValue(lines[0], ProductResponse.class).productCode());
+        assertEquals("p2", mapper.readValue(lines[1], ProductResponse.class).productCode());
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void changePriceWithUserResultForbidden() throws Exception {
@@ -140,7 +637,7 @@ class ProductControllerTest {
                         .content(body))
                 .andExpect(status().isForbidden());
 
-        verify(service, never()).changePrice(anyString(), any());
+        verify(service, never()).changePrice(anyString(), any(), any());
     }
 
     @Test
@@ -148,16 +645,90 @@ class ProductControllerTest {
     void changePriceWithAdminResultOk() throws Exception {
         var body = mapper.writeValueAsString(
                 new PriceChangeRequest(new BigDecimal("9.99")));
-        when(service.changePrice(anyString(), any()))
-                .thenReturn(new ProductResponse(1L, "b1", "Big Mac", new BigDecimal("9.99")));
+        when(service.changePrice(anyString(), any(), any()))
+                .thenReturn(new ProductResponse(1L, "b1", "Big Mac", new BigDecimal("9.99"), 3L));
 
         mvc.perform(patch("/api/products/{productCode}/price", "b1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(body))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.price").value(9.99));
+                .andExpect(jsonPath("$.price").value(9.99))
+                .andExpect(jsonPath("$.version").value(3))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""));
+
+        verify(service).changePrice(eq("b1"), any(), isNull());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void changePriceWithIfMatchPassesExpectedVersion() throws Exception {
+        var body = mapper.writeValueAsString(
+                new PriceChangeRequest(new BigDecimal("9.99")));
+        when(service.changePrice(anyString(), any(), any()))
+                .thenReturn(new ProductResponse(1L, "b1", "Big Mac", new BigDecimal("9.99"), 3L));
 
-        verify(service).changePrice(eq("b1"), any());
+        mvc.perform(patch("/api/products/{productCode}/price", "b1")
+                        .header(HttpHeaders.IF_MATCH, "\"1-2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        verify(service).changePrice(eq("b1"), any(), eq(new ProductEtags.Tag(1L, 2L)));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void changePriceWithStaleIfMatchResultPreconditionFailed() throws Exception {
+        var body = mapper.writeValueAsString(
+                new PriceChangeRequest(new BigDecimal("9.99")));
+        when(service.changePrice(anyString(), any(), any()))
+                .thenThrow(new PreconditionFailedException("Product has been modified"));
+
+        mvc.perform(patch("/api/products/{productCode}/price", "b1")
+                        .header(HttpHeaders.IF_MATCH, "\"1-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status").value(412));
+
+        mvc.perform(patch("/api/products/{productCode}/price", "b1")
+                        .header(HttpHeaders.IF_MATCH, "W/\"1-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isPreconditionFailed());
+        verify(service, times(1)).changePrice(anyString(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void changePricesWithAdminResultOk() throws Exception {
+        var body = mapper.writeValueAsString(new BulkPriceChangeRequest(
+                List.of("a1", "b1"), null, null, null, PriceAdjustmentType.PERCENTAGE, new BigDecimal("-10")));
+        when(service.changePrices(any()))
+                .thenReturn(new BulkPriceChangeResponse(2));
+
+        mvc.perform(patch("/api/products/price")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+
+        verify(service).changePrices(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void changePricesWithoutAdjustmentTypeThrowsBadRequest() throws Exception {
+        String body = """
+      { "productCodes": ["a1"], "amount": 5 }
+      """;
+
+        mvc.perform(patch("/api/products/price")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).changePrices(any());
     }
 
     @Test
@@ -184,6 +755,15 @@ class ProductControllerTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    private static ImportSubmission submission(String id) {
+        return new ImportSubmission(importJob(id, ImportStatus.QUEUED),
+                CompletableFuture.completedFuture(importJob(id, ImportStatus.COMPLETED)));
+    }
+
+    private static ImportJobResponse importJob(String id, ImportStatus status) {
+        return new ImportJobResponse(id, status, 0, 0, 0, 0, List.of(), List.of(), null, Instant.now(), null);
+    }
+
     @TestConfiguration
     @EnableMethodSecurity
     static class TestSecurityConfig {
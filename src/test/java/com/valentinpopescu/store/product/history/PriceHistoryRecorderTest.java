@@ -0,0 +1,145 @@
+package com.valentinpopescu.store.product.history;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.PricesChangedEvent;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceHistoryRecorderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private ProductProperties properties;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductProperties();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void stopShouldWriteEveryQueuedPriceChangeInBatches() {
+        properties.getHistory().setBatchSize(2);
+        List<Integer> batchSizes = recordBatchSizes();
+        PriceHistoryRecorder recorder = recorder();
+        recorder.start();
+
+        for (int i = 0; i < 5; i++) {
+            recorder.onProductChanged(priceChanged("code" + i));
+        }
+        recorder.stop();
+
+        assertFalse(recorder.isRunning());
+        assertEquals(5, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+        assertEquals(5.0, registry.get("products.price_history").tag("outcome", "written").counter().count());
+    }
+
+    @Test
+    void writerShouldCountFailedBatchesAndKeepRunning() {
+        List<Integer> batchSizes = recordBatchSizes();
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"))
+                .thenReturn(new SimpleTransactionStatus());
+        PriceHistoryRecorder recorder = recorder();
+        recorder.start();
+
+        recorder.onProductChanged(priceChanged("code0"));
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+                registry.get("products.price_history").tag("outcome", "failed").counter().count() == 1.0);
+        recorder.onProductChanged(priceChanged("code1"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> batchSizes.size() == 1);
+        recorder.stop();
+
+        assertEquals(1.0, registry.get("products.price_history").tag("outcome", "written").counter().count());
+    }
+
+    @Test
+    void onProductChangedShouldIgnoreOtherChanges() {
+        PriceHistoryRecorder recorder = recorder();
+
+        recorder.onProductChanged(ProductChangedEvent.created(product("code")));
+        recorder.onProductChanged(ProductChangedEvent.deleted("code"));
+        recorder.onProductChanged(ProductChangedEvent.bulkChanged());
+
+        assertEquals(0.0, registry.get("products.price_history.queued").gauge().value());
+        recorder.flush();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void onPricesChangedShouldQueueEveryRepricedProduct() {
+        List<Integer> batchSizes = recordBatchSizes();
+        PriceHistoryRecorder recorder = recorder();
+
+        recorder.onPricesChanged(new PricesChangedEvent(List.of(product("code0"), product("code1"))));
+
+        assertEquals(2.0, registry.get("products.price_history.queued").gauge().value());
+        recorder.flush();
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    @Test
+    void onProductChangedShouldDropWhenQueueIsFull() {
+        properties.getHistory().setQueueCapacity(2);
+        PriceHistoryRecorder recorder = recorder();
+
+        for (int i = 0; i < 3; i++) {
+            recorder.onProductChanged(priceChanged("code" + i));
+        }
+
+        assertEquals(2.0, registry.get("products.price_history.queued").gauge().value());
+        assertEquals(1.0, registry.get("products.price_history").tag("outcome", "dropped").counter().count());
+    }
+
+    private PriceHistoryRecorder recorder() {
+        return new PriceHistoryRecorder(jdbcTemplate, transactionManager, properties, registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Integer> recordBatchSizes() {
+        List<Integer> batchSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(inv -> {
+                    batchSizes.add(inv.<Collection<?>>getArgument(1).size());
+                    return new int[0][];
+                });
+        return batchSizes;
+    }
+
+    private static ProductChangedEvent priceChanged(String productCode) {
+        return ProductChangedEvent.priceChanged(product(productCode));
+    }
+
+    private static ProductResponse product(String productCode) {
+        return new ProductResponse(1L, productCode, "name", new BigDecimal("10.00"), 1L);
+    }
+}
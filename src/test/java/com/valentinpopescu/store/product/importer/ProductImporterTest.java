@@ -0,0 +1,212 @@
+package com.valentinpopescu.store.product.importer;
+
+import com.valentinpopescu.store.config.CacheConfig;
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.changes.ChangeSequences;
+import com.valentinpopescu.store.exceptions.NotFoundException;
+import com.valentinpopescu.store.exceptions.ServiceUnavailableException;
+import com.valentinpopescu.store.product.dto.ImportJobResponse;
+import com.valentinpopescu.store.product.dto.ImportRowError;
+import com.valentinpopescu.store.product.dto.ImportStatus;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.PricesChangedEvent;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.metrics.ProductMetrics;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImporterTest {
+
+    @Mock
+    private ProductRepository repository;
+    @Mock
+    private ChangeSequences changeSequences;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher events;
+    @Mock
+    private ProductMetrics metrics;
+    private ConcurrentMapCacheManager cacheManager;
+    private ProductImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        ProductProperties properties = new ProductProperties();
+        properties.getCsvImport().setQueueCapacity(0);
+        properties.getCsvImport().setChunkSize(2);
+        properties.getCsvImport().setMaxErrors(2);
+        cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS_CACHE);
+        importer = new ProductImporter(repository, changeSequences, transactionManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), events, cacheManager, metrics, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importer.destroy();
+    }
+
+    @Test
+    void importShouldUpsertValidRowsInChunksAndReportInvalidOnes() throws Exception {
+        numberChanges();
+        cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).put("a1", "stale");
+
+        ImportJobResponse job = finished(importer.submit(csv("""
+                productCode,name,price
+                a1,TV,10.00
+                b1,Phone,abc
+                c1, Radio ,5
+                d1,,7.50
+                e1,Lamp,3.00
+                """)));
+
+        assertEquals(ImportStatus.COMPLETED, job.status());
+        assertEquals(5, job.processedRows());
+        assertEquals(3, job.importedRows());
+        assertEquals(2, job.failedRows());
+        assertEquals(List.of(new ImportRowError(2, "b1", "price: must be a number"),
+                new ImportRowError(4, "d1", "name: must not be blank")), job.errors());
+
+        ArgumentCaptor<List<ProductCreateRequest>> chunks = ArgumentCaptor.captor();
+        verify(repository, times(2)).upsertAll(chunks.capture(), any());
+        assertEquals(List.of(new ProductCreateRequest("a1", "TV", new BigDecimal("10.00")),
+                new ProductCreateRequest("c1", "Radio", new BigDecimal("5"))), chunks.getAllValues().get(0));
+        assertEquals(List.of("e1"), chunks.getAllValues().get(1).stream().map(ProductCreateRequest::productCode).toList());
+        assertNull(cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get("a1"));
+        verify(events).publishEvent(ProductChangedEvent.bulkChanged());
+    }
+
+    @Test
+    void importShouldKeepTheLastRowForDuplicateCodesInAChunkAndWarnAboutTheOthers() throws Exception {
+        numberChanges();
+
+        ImportJobResponse job = finished(importer.submit(csv("""
+                productCode,name,price
+                a1,TV,10.00
+                a1,TV,12.00
+                """)));
+
+        assertEquals(ImportStatus.COMPLETED, job.status());
+        assertEquals(1, job.importedRows());
+        assertEquals(1, job.supersededRows());
+        assertEquals(List.of(new ImportRowError(1, "a1", "superseded by row 2")), job.warnings());
+        verify(repository).upsertAll(eq(List.of(new ProductCreateRequest("a1", "TV", new BigDecimal("12.00")))), any());
+    }
+
+    @Test
+    void importShouldPublishThePriceChangesOfUpsertedRows() throws Exception {
+        numberChanges();
+        ProductResponse repriced = new ProductResponse(1L, "a1", "TV", new BigDecimal("12.00"), 3L);
+        when(repository.upsertAll(anyList(), any()))
+                .thenAnswer(inv -> {
+                    inv.<Consumer<ProductResponse>>getArgument(1).accept(repriced);
+                    return 0;
+                });
+
+        finished(importer.submit(csv("""
+                productCode,name,price
+                a1,TV,12.00
+                """)));
+
+        verify(events).publishEvent(new PricesChangedEvent(List.of(repriced)));
+    }
+
+    @Test
+    void importShouldReadTheRequestStreamInTheWorkerAndRejectWhenNoPermitIsLeft() throws Exception {
+        numberChanges();
+        PipedOutputStream upload = new PipedOutputStream();
+        ImportSubmission first = importer.submit(new PipedInputStream(upload));
+        upload.write("productCode,name,price\na1,TV,10.00\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(ImportStatus.QUEUED, first.job().status());
+        assertThrows(ServiceUnavailableException.class, () -> importer.submit(csv("productCode,name,price\n")));
+        assertFalse(first.finished().isDone());
+
+        upload.close();
+        ImportJobResponse job = finished(first);
+        assertEquals(ImportStatus.COMPLETED, job.status());
+        assertEquals(1, job.importedRows());
+        finished(importer.submit(csv("productCode,name,price\n")));
+    }
+
+    @Test
+    void importShouldCapReportedErrorsButCountEveryFailedRow() throws Exception {
+        ImportJobResponse job = finished(importer.submit(csv("""
+                productCode,name,price
+                a1,TV,-1
+                b1,TV,-1
+                c1,TV,-1
+                """)));
+
+        assertEquals(ImportStatus.COMPLETED, job.status());
+        assertEquals(3, job.failedRows());
+        assertEquals(2, job.errors().size());
+        verify(repository, never()).upsertAll(anyList(), any());
+        verify(events, never()).publishEvent(ProductChangedEvent.bulkChanged());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void importShouldFailWhenARequiredColumnIsMissing() throws Exception {
+        ImportJobResponse job = finished(importer.submit(csv("""
+                productCode,title,price
+                a1,TV,10.00
+                """)));
+
+        assertEquals(ImportStatus.FAILED, job.status());
+        assertEquals("Missing CSV column: name", job.message());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findShouldThrowNotFoundForUnknownJob() {
+        assertThrows(NotFoundException.class, () -> importer.find("missing"));
+    }
+
+    private ImportJobResponse finished(ImportSubmission submission) throws Exception {
+        ImportJobResponse job = submission.finished().get(5, TimeUnit.SECONDS);
+        assertEquals(submission.job().id(), job.id());
+        assertEquals(job, importer.find(job.id()));
+        return job;
+    }
+
+    private void numberChanges() {
+        when(changeSequences.numbering(any()))
+                .thenAnswer(inv -> inv.<Supplier<?>>getArgument(0).get());
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
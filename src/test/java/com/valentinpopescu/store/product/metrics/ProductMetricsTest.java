@@ -0,0 +1,55 @@
+package com.valentinpopescu.store.product.metrics;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import com.valentinpopescu.store.product.snapshot.CatalogSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductMetricsTest {
+
+    @Mock
+    private ProductRepository repository;
+    @Mock
+    private CatalogSnapshot snapshot;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ProductProperties properties = new ProductProperties();
+
+    @BeforeEach
+    void setUp() {
+        properties.getMetrics().setCatalogSizeRefresh(Duration.ofHours(1));
+        new ProductMetrics(registry, repository, snapshot, properties);
+    }
+
+    @Test
+    void catalogSizeShouldComeFromSnapshotWhenReady() {
+        when(snapshot.isReady()).thenReturn(true);
+        when(snapshot.size()).thenReturn(42);
+
+        assertEquals(42.0, catalogSize());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void catalogSizeShouldReuseCountUntilRefreshInterval() {
+        when(repository.count()).thenReturn(7L, 8L);
+
+        assertEquals(7.0, catalogSize());
+        assertEquals(7.0, catalogSize());
+        verify(repository, times(1)).count();
+    }
+
+    private double catalogSize() {
+        return registry.get("products.catalog.size").gauge().value();
+    }
+}
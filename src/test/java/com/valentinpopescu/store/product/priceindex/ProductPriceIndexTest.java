@@ -0,0 +1,143 @@
+package com.valentinpopescu.store.product.priceindex;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductPriceIndexTest {
+
+    @Mock
+    private ProductRepository repository;
+    private ProductProperties properties;
+    private ProductPriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductProperties();
+        properties.getPriceIndex().setEnabled(true);
+        index = new ProductPriceIndex(repository, properties);
+    }
+
+    @Test
+    void loadShouldNotReadCatalogWhenDisabled() {
+        properties.getPriceIndex().setEnabled(false);
+
+        index.load();
+
+        assertFalse(index.isReady());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findShouldReturnInclusiveRangeOrderedByPriceThenId() {
+        stubCatalog(
+                product(1L, "a", "30.00"),
+                product(2L, "b", "10.00"),
+                product(3L, "c", "20.00"),
+                product(4L, "d", "20.00"),
+                product(5L, "e", "40.00"));
+        index.load();
+
+        assertEquals(List.of("c", "d", "a"), codes(index.find(new BigDecimal("20"), new BigDecimal("30.00"), false, 10)));
+        assertEquals(List.of("a", "d", "c"), codes(index.find(new BigDecimal("20"), new BigDecimal("30.00"), true, 10)));
+        assertEquals(List.of("e", "a"), codes(index.find(BigDecimal.ZERO, new BigDecimal("100"), true, 2)));
+    }
+
+    @Test
+    void findShouldStopAtLimitInAWideRange() {
+        List<ProductResponse> catalog = IntStream.rangeClosed(1, 100_000)
+                .mapToObj(i -> product((long) i, "p" + i, BigDecimal.valueOf(100 + i, 2).toPlainString()))
+                .toList();
+        when(repository.findResponsesAfterId(anyLong(), any(Limit.class)))
+                .thenAnswer(inv -> {
+                    int from = inv.<Long>getArgument(0).intValue();
+                    return catalog.subList(from, Math.min(from + inv.<Limit>getArgument(1).max(), catalog.size()));
+                });
+        index.load();
+
+        assertEquals(List.of("p1", "p2", "p3"), codes(index.find(BigDecimal.ZERO, new BigDecimal("100000"), false, 3)));
+        assertEquals(List.of("p100000", "p99999"), codes(index.find(BigDecimal.ZERO, new BigDecimal("100000"), true, 2)));
+    }
+
+    @Test
+    void findShouldCompareBoundsIgnoringScale() {
+        stubCatalog(
+                product(1L, "a", "10.00"),
+                product(2L, "b", "10.01"),
+                product(3L, "c", "10.02"));
+        index.load();
+
+        assertEquals(List.of("a", "b"), codes(index.find(new BigDecimal("10"), new BigDecimal("10.010"), false, 10)));
+        assertEquals(List.of("b"), codes(index.find(new BigDecimal("10.001"), new BigDecimal("10.019"), false, 10)));
+        assertTrue(index.find(new BigDecimal("10.011"), new BigDecimal("10.019"), false, 10).isEmpty());
+    }
+
+    @Test
+    void onProductChangedShouldApplyCreatePriceChangeAndDelete() {
+        stubCatalog(product(1L, "a", "10.00"), product(2L, "b", "20.00"));
+        index.load();
+
+        index.onProductChanged(ProductChangedEvent.created(
+                new ProductResponse(3L, "c", "c", new BigDecimal("15.00"), 0L)));
+        index.onProductChanged(ProductChangedEvent.priceChanged(
+                new ProductResponse(1L, "a", "a", new BigDecimal("25.00"), 1L)));
+        index.onProductChanged(ProductChangedEvent.deleted("b"));
+
+        List<ProductResponse> found = index.find(BigDecimal.ZERO, new BigDecimal("100"), false, 10);
+        assertEquals(List.of("c", "a"), codes(found));
+        assertEquals(1L, found.get(1).version());
+    }
+
+    @Test
+    void onBulkChangedShouldReloadFromRepository() {
+        stubCatalog(product(1L, "a", "10.00"));
+        index.load();
+        CountDownLatch reloading = new CountDownLatch(1);
+        when(repository.findResponsesAfterId(anyLong(), any(Limit.class)))
+                .thenAnswer(inv -> {
+                    reloading.await();
+                    return List.of(product(1L, "a", "50.00"));
+                });
+
+        index.onProductChanged(ProductChangedEvent.bulkChanged());
+
+        assertFalse(index.isReady());
+        reloading.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(index::isReady);
+        assertTrue(index.find(BigDecimal.ZERO, new BigDecimal("20"), false, 10).isEmpty());
+        assertEquals(List.of("a"), codes(index.find(new BigDecimal("50"), new BigDecimal("50"), false, 10)));
+    }
+
+    private static List<String> codes(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::productCode).toList();
+    }
+
+    private void stubCatalog(ProductResponse... products) {
+        when(repository.findResponsesAfterId(anyLong(), any(Limit.class)))
+                .thenReturn(List.of(products));
+    }
+
+    private ProductResponse product(Long id, String productCode, String price) {
+        return new ProductResponse(id, productCode, productCode, new BigDecimal(price), 0L);
+    }
+}
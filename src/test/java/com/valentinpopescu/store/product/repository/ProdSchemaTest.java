@@ -0,0 +1,32 @@
+package com.valentinpopescu.store.product.repository;
+
+import com.valentinpopescu.store.product.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.defer-datasource-initialization=false",
+        "spring.sql.init.schema-locations=classpath:schema-prod.sql"
+})
+class ProdSchemaTest {
+
+    @Autowired
+    private ProductRepository repository;
+    @Autowired
+    private ProductTombstoneRepository tombstoneRepository;
+
+    @Test
+    void prodSchemaShouldMatchEntitiesAndSeedTheChangeHorizon() {
+        Product saved = repository.saveAndFlush(new Product("code", "name", new BigDecimal("10.00")));
+
+        assertNotNull(saved.getId());
+        assertTrue(repository.nextChangeSequence() > 0);
+        assertEquals(0L, tombstoneRepository.findPurgedThrough());
+    }
+}
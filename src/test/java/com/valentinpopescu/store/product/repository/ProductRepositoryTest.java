@@ -1,13 +1,28 @@
 package com.valentinpopescu.store.product.repository;
 
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
 import com.valentinpopescu.store.product.model.Product;
+import com.valentinpopescu.store.product.model.ProductTombstone;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,6 +31,8 @@ class ProductRepositoryTest {
 
     @Autowired
     private ProductRepository repository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
     void findByProductCodeShouldReturnWhenProductCodeExists() {
@@ -50,6 +67,218 @@ class ProductRepositoryTest {
         assertThrows(DataIntegrityViolationException.class, () -> repository.saveAndFlush(product));
     }
 
+    @Test
+    void findExistingProductCodesShouldReturnOnlyStoredCodes() {
+        repository.save(product("first"));
+        repository.save(product("second"));
+
+        assertEquals(Set.of("first", "second"),
+                repository.findExistingProductCodes(List.of("first", "second", "missing")));
+    }
+
+    @Test
+    void adjustPriceByProductCodesShouldApplyPercentageAndSkipOtherProducts() {
+        repository.save(product("first", "10.00"));
+        repository.save(product("second", "20.00"));
+        repository.save(product("other", "30.00"));
+
+        List<ProductResponse> repriced = new ArrayList<>();
+        int updated = repository.adjustPriceByProductCodes(List.of("first", "second"),
+                875_000L, BigDecimal.ZERO, repriced::add);
+
+        assertEquals(2, updated);
+        assertEquals(Set.of("first:8.75:1", "second:17.50:1"), repriced.stream()
+                .map(product -> product.productCode() + ":" + product.price() + ":" + product.version())
+                .collect(Collectors.toSet()));
+        assertEquals(new BigDecimal("8.75"), priceOf("first"));
+        assertEquals(new BigDecimal("17.50"), priceOf("second"));
+        assertEquals(new BigDecimal("30.00"), priceOf("other"));
+    }
+
+    @Test
+    void adjustPriceByFilterShouldMatchPrefixAndPriceRangeAndKeepPricesPositive() {
+        repository.save(product("tv-1", "5.00"));
+        repository.save(product("tv-2", "50.00"));
+        repository.save(product("tv-3", "500.00"));
+        repository.save(product("tvx", "50.00"));
+
+        List<ProductResponse> repriced = new ArrayList<>();
+        int updated = repository.adjustPriceByFilter("tv-%", new BigDecimal("1.00"), new BigDecimal("100.00"),
+                1_000_000L, new BigDecimal("-10.00"), repriced::add);
+
+        assertEquals(1, updated);
+        assertEquals(List.of("tv-2"), repriced.stream().map(ProductResponse::productCode).toList());
+        assertEquals(new BigDecimal("5.00"), priceOf("tv-1"));
+        assertEquals(new BigDecimal("40.00"), priceOf("tv-2"));
+        assertEquals(new BigDecimal("500.00"), priceOf("tv-3"));
+        assertEquals(new BigDecimal("50.00"), priceOf("tvx"));
+    }
+
+    @Test
+    void updatePriceByProductCodeShouldReturnUpdatedRowInOneStatement() {
+        Product saved = repository.saveAndFlush(product("code", "10.00"));
+        entityManager.clear();
+
+        Optional<ProductResponse> updated = repository.updatePriceByProductCode("code", new BigDecimal("12.50"), null, 1L);
+
+        assertTrue(updated.isPresent());
+        assertEquals(new ProductResponse(saved.getId(), "code", "name", new BigDecimal("12.50"), 1L), updated.get());
+        assertEquals(new BigDecimal("12.50"), priceOf("code"));
+        assertTrue(repository.updatePriceByProductCode("missing", BigDecimal.ONE, null, 1L).isEmpty());
+    }
+
+    @Test
+    void updatePriceByProductCodeShouldOnlyUpdateExpectedVersion() {
+        Product saved = repository.saveAndFlush(product("code", "10.00"));
+        entityManager.clear();
+
+        var stale = new ProductEtags.Tag(saved.getId(), 1L);
+        var current = new ProductEtags.Tag(saved.getId(), 0L);
+        var otherProduct = new ProductEtags.Tag(saved.getId() + 1, 0L);
+
+        assertTrue(repository.updatePriceByProductCode("code", new BigDecimal("11.00"), stale, 1L).isEmpty());
+        assertTrue(repository.updatePriceByProductCode("code", new BigDecimal("11.00"), otherProduct, 1L).isEmpty());
+        assertEquals(1L, repository.updatePriceByProductCode("code", new BigDecimal("12.00"), current, 1L)
+                .orElseThrow().version());
+        assertTrue(repository.updatePriceByProductCode("code", new BigDecimal("13.00"), current, 1L).isEmpty());
+        assertEquals(new BigDecimal("12.00"), priceOf("code"));
+    }
+
+    @Test
+    void nextChangeSequencesShouldHandOutIncreasingDistinctValues() {
+        long first = repository.nextChangeSequence();
+
+        long[] block = repository.nextChangeSequences(3);
+
+        assertEquals(3, block.length);
+        assertTrue(first < block[0] && block[0] < block[1] && block[1] < block[2]);
+        assertTrue(block[2] < repository.nextChangeSequence());
+        assertEquals(0, repository.nextChangeSequences(0).length);
+    }
+
+    @Test
+    void findHighestChangeSeqShouldCoverProductsAndTombstonesWithoutAllocating() {
+        Product product = product("code");
+        product.setChangeSeq(1_000_000L);
+        repository.saveAndFlush(product);
+        entityManager.persistAndFlush(new ProductTombstone("deleted", 1_000_002L, Instant.now()));
+
+        assertEquals(1_000_002L, repository.findHighestChangeSeq());
+        assertEquals(1_000_002L, repository.findHighestChangeSeq());
+    }
+
+    @Test
+    void bulkAdjustShouldGiveEveryUpdatedRowItsOwnChangeSequence() {
+        Product first = repository.save(product("first", "10.00"));
+        Product second = repository.save(product("second", "20.00"));
+        repository.save(product("other", "30.00"));
+        long since = repository.nextChangeSequence();
+
+        repository.adjustPriceByProductCodes(List.of("first", "second"), 1_000_000L, BigDecimal.ONE, product -> {
+        });
+
+        List<CatalogChange> changed = repository.findChangesBetween(since, Long.MAX_VALUE, Limit.of(10));
+        assertEquals(Set.of(first.getId(), second.getId()),
+                changed.stream().map(change -> change.product().id()).collect(Collectors.toSet()));
+        assertNotEquals(changed.get(0).sequence(), changed.get(1).sequence());
+        assertTrue(changed.get(1).sequence() < since + 3);
+        assertEquals(ProductChangedEvent.ChangeType.PRICE_CHANGED, changed.get(0).type());
+    }
+
+    @Test
+    void deleteByProductCodeShouldReturnAffectedRows() {
+        repository.saveAndFlush(product("code"));
+        entityManager.clear();
+
+        assertEquals(1, repository.deleteByProductCode("code"));
+        assertEquals(0, repository.deleteByProductCode("code"));
+        assertFalse(repository.existsByProductCode("code"));
+    }
+
+    @Test
+    void searchByTermsShouldMatchEveryTermAndRankLikeSearchIndex() {
+        Product headphones = repository.save(new Product("xphone", "Headphones Sony", new BigDecimal("10.00")));
+        Product deskPhone = repository.save(new Product("phone", "Desk phone", new BigDecimal("10.00")));
+        Product charger = repository.save(new Product("p4", "Phone charger with a long cable", new BigDecimal("10.00")));
+        Product phoneCase = repository.saveAndFlush(new Product("p3", "Phone case", new BigDecimal("10.00")));
+
+        List<ProductResponse> found = repository.searchByTerms(List.of("phone"), "phone", "phone%", Limit.of(10));
+
+        assertEquals(List.of(deskPhone.getId(), phoneCase.getId(), charger.getId(), headphones.getId()),
+                found.stream().map(ProductResponse::id).toList());
+        assertEquals(2, repository.searchByTerms(List.of("phone"), "phone", "phone%", Limit.of(2)).size());
+        assertEquals(List.of(phoneCase.getId(), charger.getId()), repository.searchByTerms(List.of("phone", "ca"),
+                "phone ca", "phone ca%", Limit.of(10)).stream().map(ProductResponse::id).toList());
+        assertEquals(List.of(deskPhone.getId()), repository.searchByTerms(List.of("desk", "phone"), "desk phone",
+                "desk phone%", Limit.of(10)).stream().map(ProductResponse::id).toList());
+        assertTrue(repository.searchByTerms(List.of("ho"), "ho", "ho%", Limit.of(10)).isEmpty());
+    }
+
+    @Test
+    void findResponsesByPriceBetweenShouldApplyInclusiveBoundsSortAndLimit() {
+        repository.save(product("a", "5.00"));
+        repository.save(product("b", "10.00"));
+        repository.save(product("c", "15.00"));
+        repository.saveAndFlush(product("d", "20.00"));
+
+        List<ProductResponse> found = repository.findResponsesByPriceBetween(new BigDecimal("10.00"),
+                new BigDecimal("20.00"), Sort.by(Sort.Direction.DESC, "price", "id"), Limit.of(2));
+
+        assertEquals(List.of("d", "c"), found.stream().map(ProductResponse::productCode).toList());
+    }
+
+    @Test
+    void findResponsesAfterIdShouldProjectKeysetPageWithoutManagingEntities() {
+        Product first = repository.save(product("first", "10.00"));
+        Product second = repository.save(product("second", "20.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<ProductResponse> page = repository.findResponsesAfterId(first.getId() - 1, Limit.of(5));
+
+        assertEquals(List.of(new ProductResponse(first.getId(), "first", "name", new BigDecimal("10.00"), 0L),
+                new ProductResponse(second.getId(), "second", "name", new BigDecimal("20.00"), 0L)), page);
+        assertEquals(repository.findResponseByProductCode("second").orElseThrow(), page.get(1));
+        assertEquals(0, entityManager.getEntityManager().unwrap(SessionImplementor.class)
+                .getPersistenceContext().getNumberOfManagedEntities());
+    }
+
+    @Test
+    void upsertAllShouldUpdateExistingAndInsertNewProductsWithoutIdCollisions() {
+        Product existing = repository.saveAndFlush(product("existing", "10.00"));
+        repository.saveAndFlush(product("same-price", "5.00"));
+        List<ProductResponse> repriced = new ArrayList<>();
+
+        int inserted = repository.upsertAll(List.of(
+                new ProductCreateRequest("existing", "Renamed", new BigDecimal("11.00")),
+                new ProductCreateRequest("same-price", "Renamed", new BigDecimal("5.0")),
+                new ProductCreateRequest("new", "New", new BigDecimal("12.00"))), repriced::add);
+        Product later = repository.saveAndFlush(product("later", "1.00"));
+        entityManager.clear();
+
+        assertEquals(1, inserted);
+        assertEquals(List.of(new ProductResponse(existing.getId(), "existing", "Renamed", new BigDecimal("11.00"), 1L)),
+                repriced);
+        Product updated = repository.findByProductCode("existing").orElseThrow();
+        assertEquals(existing.getId(), updated.getId());
+        assertEquals("Renamed", updated.getName());
+        assertEquals(1L, updated.getVersion());
+        Product created = repository.findByProductCode("new").orElseThrow();
+        assertEquals(0L, created.getVersion());
+        assertNotNull(updated.getChangeSeq());
+        assertNotNull(created.getChangeSeq());
+        assertNotEquals(updated.getChangeSeq(), created.getChangeSeq());
+        assertEquals(3, Set.of(existing.getId(), created.getId(), later.getId()).size());
+    }
+
+    private BigDecimal priceOf(String productCode) {
+        return repository.findByProductCode(productCode).orElseThrow().getPrice();
+    }
+
+    private Product product(String productCode, String price) {
+        return new Product(productCode, "name", new BigDecimal(price));
+    }
+
     private Product product(String productCode) {
         return new Product(
                 productCode,
@@ -0,0 +1,168 @@
+package com.valentinpopescu.store.product.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.service.ProductService;
+import com.valentinpopescu.store.product.version.CatalogVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogResponseCacheTest {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Mock
+    private ProductService service;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final CatalogVersions versions = new CatalogVersions();
+    private ProductProperties properties;
+    private CatalogResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductProperties();
+        cache = new CatalogResponseCache(service, versions, properties,
+                new MappingJackson2HttpMessageConverter(mapper),
+                new MappingJackson2CborHttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter());
+    }
+
+    @Test
+    void getShouldEncodeCatalogOncePerVersion() throws Exception {
+        List<ProductResponse> products = List.of(product(1L, "a"), product(2L, "b"));
+        when(service.findAll()).thenReturn(products);
+
+        byte[] first = cache.get(MediaType.APPLICATION_JSON, false).bytes();
+        byte[] second = cache.get(MediaType.APPLICATION_JSON, false).bytes();
+
+        assertSame(first, second);
+        assertEquals(products, List.of(mapper.readValue(first, ProductResponse[].class)));
+        verify(service, times(1)).findAll();
+
+        versions.onProductChanged(ProductChangedEvent.deleted("b"));
+        when(service.findAll()).thenReturn(List.of(product(1L, "a")));
+
+        byte[] third = cache.get(MediaType.APPLICATION_JSON, false).bytes();
+
+        assertEquals(List.of(product(1L, "a")), List.of(mapper.readValue(third, ProductResponse[].class)));
+        verify(service, times(2)).findAll();
+    }
+
+    @Test
+    void getShouldTagTheBodyWithTheVersionItWasBuiltFor() {
+        long built = versions.currentVersion();
+        when(service.findAll()).thenAnswer(inv -> {
+            versions.onProductChanged(ProductChangedEvent.bulkChanged());
+            return List.of(product(1L, "a"));
+        });
+
+        CatalogResponseCache.Body stale = cache.get(MediaType.APPLICATION_JSON, false);
+
+        assertEquals(built, stale.version());
+        assertEquals(built + 1, versions.currentVersion());
+        doReturn(List.of(product(1L, "a"))).when(service).findAll();
+        assertEquals(built + 1, cache.get(MediaType.APPLICATION_JSON, false).version());
+        verify(service, times(2)).findAll();
+    }
+
+    @Test
+    void getShouldKeepOneEntryPerFormat() throws Exception {
+        List<ProductResponse> products = List.of(product(1L, "a"));
+        when(service.findAll()).thenReturn(products);
+
+        byte[] json = cache.get(MediaType.APPLICATION_JSON, false).bytes();
+        byte[] cbor = cache.get(MediaType.APPLICATION_CBOR, false).bytes();
+        cache.get(MediaType.APPLICATION_JSON, false);
+        cache.get(MediaType.APPLICATION_CBOR, false);
+
+        assertEquals(products, List.of(mapper.readValue(json, ProductResponse[].class)));
+        assertEquals(products, List.of(new CBORMapper().readValue(cbor, ProductResponse[].class)));
+        verify(service, times(2)).findAll();
+    }
+
+    @Test
+    void getShouldReturnPrecompressedBodyOnlyAboveMinimumSize() throws Exception {
+        properties.getListCache().setGzipMinSize(DataSize.ofKilobytes(1));
+        when(service.findAll()).thenReturn(List.of(product(1L, "a")));
+
+        assertFalse(cache.get(MediaType.APPLICATION_JSON, true).gzipped());
+
+        List<ProductResponse> products = IntStream.range(0, 50).mapToObj(i -> product(i, "p" + i)).toList();
+        when(service.findAll()).thenReturn(products);
+        versions.onProductChanged(ProductChangedEvent.bulkChanged());
+
+        CatalogResponseCache.Body gzipped = cache.get(MediaType.APPLICATION_JSON, true);
+        CatalogResponseCache.Body plain = cache.get(MediaType.APPLICATION_JSON, false);
+
+        assertTrue(gzipped.gzipped());
+        assertFalse(plain.gzipped());
+        assertTrue(gzipped.bytes().length < plain.bytes().length);
+        assertArrayEquals(plain.bytes(), gunzip(gzipped.bytes()));
+        verify(service, times(2)).findAll();
+    }
+
+    @Test
+    void getShouldEncodeOnEveryReadWhenDisabled() {
+        properties.getListCache().setEnabled(false);
+        when(service.findAll()).thenReturn(List.of(product(1L, "a")));
+
+        cache.get(MediaType.APPLICATION_JSON, false);
+        cache.get(MediaType.APPLICATION_JSON, false);
+
+        verify(service, times(2)).findAll();
+    }
+
+    @Test
+    void negotiateShouldPickFirstSupportedAcceptedType() throws Exception {
+        assertEquals(MediaType.APPLICATION_JSON, cache.negotiate(List.of(MediaType.ALL)));
+        assertEquals(MediaType.APPLICATION_CBOR, cache.negotiate(List.of(MediaType.TEXT_HTML, MediaType.APPLICATION_CBOR)));
+        assertEquals(SMILE, cache.negotiate(List.of(SMILE, MediaType.APPLICATION_JSON)));
+        assertThrows(HttpMediaTypeNotAcceptableException.class, () -> cache.negotiate(List.of(MediaType.TEXT_HTML)));
+    }
+
+    @Test
+    void acceptsGzipShouldHonourQualityAndWildcard() {
+        assertTrue(CatalogResponseCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CatalogResponseCache.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(CatalogResponseCache.acceptsGzip("*"));
+        assertFalse(CatalogResponseCache.acceptsGzip(null));
+        assertFalse(CatalogResponseCache.acceptsGzip("identity"));
+        assertFalse(CatalogResponseCache.acceptsGzip("gzip;q=0"));
+        assertFalse(CatalogResponseCache.acceptsGzip("*;q=1, gzip; q=0.0"));
+        assertFalse(CatalogResponseCache.acceptsGzip("*;q=0"));
+    }
+
+    private static ProductResponse product(long id, String productCode) {
+        return new ProductResponse(id, productCode, "Product " + productCode, new BigDecimal("10.00"), 0L);
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
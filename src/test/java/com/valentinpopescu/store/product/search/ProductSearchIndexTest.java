@@ -0,0 +1,163 @@
+package com.valentinpopescu.store.product.search;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository repository;
+    private ProductProperties properties;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductProperties();
+        index = new ProductSearchIndex(repository, properties);
+    }
+
+    @Test
+    void loadShouldNotReadCatalogWhenDisabled() {
+        properties.getSearch().setEnabled(false);
+
+        index.load();
+
+        assertFalse(index.isReady());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void searchShouldMatchEveryTermInNameOrProductCode() {
+        stubCatalog(
+                product(1L, "tv-55", "Samsung QLED TV"),
+                product(2L, "tv-65", "LG OLED TV"),
+                product(3L, "ph-15", "iPhone 15 Pro"),
+                product(4L, "ph-s24", "Samsung Galaxy S24"));
+        index.load();
+
+        assertEquals(List.of("tv-55", "ph-s24"), codes(index.search("samsung", 10)));
+        assertEquals(List.of("tv-55"), codes(index.search("Samsung  tv", 10)));
+        assertEquals(List.of("tv-65", "tv-55"), codes(index.search("led", 10)));
+        assertEquals(List.of("ph-15"), codes(index.search("PH-15", 10)));
+        assertTrue(index.search("sony", 10).isEmpty());
+        assertTrue(index.search("amsung oled", 10).isEmpty());
+    }
+
+    @Test
+    void searchShouldMatchShortTermsOnWordPrefixes() {
+        stubCatalog(
+                product(1L, "a1", "Galaxy Tab"),
+                product(2L, "a2", "Agate necklace"));
+        index.load();
+
+        assertEquals(List.of("a1"), codes(index.search("ga", 10)));
+        assertEquals(List.of("a1"), codes(index.search("t", 10)));
+        assertEquals(2, index.search("a", 10).size());
+    }
+
+    @Test
+    void searchShouldRankExactCodeAndWordPrefixFirstAndApplyLimit() {
+        stubCatalog(
+                product(1L, "xphone", "Headphones Sony"),
+                product(2L, "phone", "Desk phone"),
+                product(3L, "p3", "Phone case"),
+                product(4L, "p4", "Phone charger with a long cable"));
+        index.load();
+
+        assertEquals(List.of("phone", "p3", "p4", "xphone"), codes(index.search("phone", 10)));
+        assertEquals(List.of("phone", "p3"), codes(index.search("phone", 2)));
+    }
+
+    @Test
+    void onProductChangedShouldApplyCreatePriceChangeAndDelete() {
+        stubCatalog(product(1L, "a1", "Chainsaw Stihl"));
+        index.load();
+
+        index.onProductChanged(ProductChangedEvent.created(
+                new ProductResponse(2L, "b1", "Chainsaw Husqvarna", new BigDecimal("300.00"), 0L)));
+        index.onProductChanged(ProductChangedEvent.priceChanged(
+                new ProductResponse(1L, "a1", "Chainsaw Stihl", new BigDecimal("199.50"), 1L)));
+
+        List<ProductResponse> found = index.search("chainsaw", 10);
+        assertEquals(List.of("a1", "b1"), codes(found));
+        assertEquals(new BigDecimal("199.50"), found.get(0).price());
+
+        index.onProductChanged(ProductChangedEvent.deleted("a1"));
+        assertEquals(List.of("b1"), codes(index.search("chainsaw", 10)));
+    }
+
+    @Test
+    void onProductChangedShouldKeepResultsAcrossCompaction() {
+        stubCatalog();
+        index.load();
+
+        for (int i = 0; i < 5000; i++) {
+            index.onProductChanged(ProductChangedEvent.created(
+                    new ProductResponse((long) i + 1, "code" + i, "name" + i, new BigDecimal("1.00"), 0L)));
+        }
+        for (int i = 0; i < 5000; i++) {
+            if (i % 4 != 3) {
+                index.onProductChanged(ProductChangedEvent.deleted("code" + i));
+            }
+        }
+
+        assertEquals(List.of("code4999"), codes(index.search("name4999", 10)));
+        assertTrue(index.search("name4998", 10).isEmpty());
+        assertEquals(100, index.search("code", 100).size());
+    }
+
+    @Test
+    void onBulkChangedShouldReloadFromRepository() {
+        stubCatalog(product(1L, "a1", "Chainsaw Stihl"));
+        index.load();
+        CountDownLatch reloading = new CountDownLatch(1);
+        when(repository.findResponsesAfterId(anyLong(), any(Limit.class)))
+                .thenAnswer(inv -> {
+                    reloading.await();
+                    return List.of(product(1L, "a1", "Leaf blower Stihl"));
+                });
+
+        index.onProductChanged(ProductChangedEvent.bulkChanged());
+
+        assertFalse(index.isReady());
+        reloading.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(index::isReady);
+        assertTrue(index.search("chainsaw", 10).isEmpty());
+        assertEquals(List.of("a1"), codes(index.search("blower", 10)));
+    }
+
+    private static List<String> codes(List<ProductResponse> products) {
+        return products.stream().map(ProductResponse::productCode).toList();
+    }
+
+    private void stubCatalog(ProductResponse... products) {
+        when(repository.count())
+                .thenReturn((long) products.length);
+        when(repository.findResponsesAfterId(anyLong(), any(Limit.class)))
+                .thenReturn(List.of(products));
+    }
+
+    private ProductResponse product(Long id, String productCode, String name) {
+        return new ProductResponse(id, productCode, name, new BigDecimal("10.00"), 0L);
+    }
+}
@@ -1,25 +1,71 @@
 package com.valentinpopescu.store.product.service;
 
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.datasource.RecentEvictions;
 import com.valentinpopescu.store.exceptions.BadRequestException;
 import com.valentinpopescu.store.exceptions.NotFoundException;
+import com.valentinpopescu.store.exceptions.PreconditionFailedException;
+import com.valentinpopescu.store.product.changes.ChangeSequences;
+import com.valentinpopescu.store.product.common.ProductCursors;
+import com.valentinpopescu.store.product.common.ProductEtags;
+import com.valentinpopescu.store.product.dto.BulkCreateResponse;
+import com.valentinpopescu.store.product.dto.BulkPriceChangeRequest;
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.dto.CatalogChanges;
+import com.valentinpopescu.store.product.dto.PriceAdjustmentType;
 import com.valentinpopescu.store.product.dto.PriceChangeRequest;
+import com.valentinpopescu.store.product.dto.PriceHistoryItem;
 import com.valentinpopescu.store.product.dto.ProductCreateRequest;
+import com.valentinpopescu.store.product.dto.ProductPage;
 import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.PricesChangedEvent;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.metrics.ProductMetrics;
 import com.valentinpopescu.store.product.model.Product;
+import com.valentinpopescu.store.product.model.ProductTombstone;
+import com.valentinpopescu.store.product.priceindex.ProductPriceIndex;
+import com.valentinpopescu.store.product.repository.PriceHistoryRepository;
 import com.valentinpopescu.store.product.repository.ProductRepository;
+import com.valentinpopescu.store.product.repository.ProductTombstoneRepository;
+import com.valentinpopescu.store.product.search.ProductSearchIndex;
+import com.valentinpopescu.store.product.snapshot.CatalogSnapshot;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,29 +73,66 @@ class ProductServiceImplTest {
 
     @Mock
     private ProductRepository repository;
+    @Mock
+    private PriceHistoryRepository priceHistoryRepository;
+    @Mock
+    private ProductTombstoneRepository tombstoneRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private Session session;
+    @Mock
+    private ApplicationEventPublisher events;
+    @Mock
+    private CatalogSnapshot snapshot;
+    @Mock
+    private ProductSearchIndex searchIndex;
+    @Mock
+    private ProductPriceIndex priceIndex;
+    @Mock
+    private ProductMetrics metrics;
+    @Mock
+    private ChangeSequences changeSequences;
+    private ProductProperties properties;
     private ProductServiceImpl service;
 
     @BeforeEach
     void setUp() {
-        service = new ProductServiceImpl(repository);
+        properties = new ProductProperties();
+        service = new ProductServiceImpl(repository, priceHistoryRepository, tombstoneRepository, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), properties, events, snapshot, searchIndex, priceIndex, metrics,
+                changeSequences, new RecentEvictions(Duration.ZERO));
     }
 
     @Test
     void addShouldThrowBadRequestWhenProductCodeExists() {
-        when(repository.existsByProductCode("code"))
-                .thenReturn(true);
+        var violation = new ConstraintViolationException("duplicate", null, null,
+                ConstraintViolationException.ConstraintKind.UNIQUE, "uk_product_product_code");
+        when(repository.saveAndFlush(any(Product.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate", violation));
 
         var request = productCreateReq("code", "name", "10.00");
-        assertThrows(BadRequestException.class, () -> service.add(request));
+        var ex = assertThrows(BadRequestException.class, () -> service.add(request));
 
-        verify(repository, never()).save(any());
+        assertEquals("Product already exists", ex.getMessage());
+        verify(repository, never()).existsByProductCode(any());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void addShouldRethrowOtherIntegrityViolations() {
+        var violation = new ConstraintViolationException("null", null, null,
+                ConstraintViolationException.ConstraintKind.OTHER, null);
+        when(repository.saveAndFlush(any(Product.class)))
+                .thenThrow(new DataIntegrityViolationException("null", violation));
+
+        var request = productCreateReq("code", "name", "10.00");
+        assertThrows(DataIntegrityViolationException.class, () -> service.add(request));
     }
 
     @Test
     void addShouldSaveAndReturnResponse() {
-        when(repository.existsByProductCode("code"))
-                .thenReturn(false);
-        when(repository.save(any(Product.class)))
+        when(repository.saveAndFlush(any(Product.class)))
                 .thenAnswer(inv -> inv.getArgument(0));
 
         var request = productCreateReq("code", "name", "10.00");
@@ -58,14 +141,80 @@ class ProductServiceImplTest {
         assertEquals("code", resp.productCode());
         assertEquals("name", resp.name());
         assertEquals(new BigDecimal("10.00"), resp.price());
-        verify(repository).save(any(Product.class));
+        verify(repository).saveAndFlush(any(Product.class));
+        verify(repository, never()).existsByProductCode(any());
+        verify(events).publishEvent(ProductChangedEvent.created(resp));
+        verify(metrics).created(1);
+    }
+
+    @Test
+    void addAllShouldPersistValidProductsAndReportFailuresPerItem() {
+        when(entityManager.unwrap(Session.class))
+                .thenReturn(session);
+        when(repository.findExistingProductCodes(anyCollection()))
+                .thenReturn(Set.of("existing"));
+        when(changeSequences.next(6))
+                .thenReturn(new long[] { 11L, 12L, 13L, 14L, 15L, 16L });
+
+        BulkCreateResponse response = service.addAll(Arrays.asList(
+                productCreateReq("new1", "first", "1.00"),
+                productCreateReq("existing", "second", "2.00"),
+                productCreateReq("new1", "third", "3.00"),
+                productCreateReq("new2", "", "4.00"),
+                null,
+                productCreateReq("new3", "fifth", "5.00")
+        ));
+
+        assertEquals(2, response.created());
+        assertEquals(4, response.failed());
+        assertTrue(response.items().get(0).created());
+        assertEquals("Product already exists", response.items().get(1).error());
+        assertEquals("Duplicate product code in request", response.items().get(2).error());
+        assertFalse(response.items().get(3).created());
+        assertEquals("Product must not be null", response.items().get(4).error());
+        assertEquals("new3", response.items().get(5).product().productCode());
+        verify(session).setJdbcBatchSize(properties.getBulk().getBatchSize());
+        verify(entityManager).persist(argThat((Product product) -> product.getChangeSeq() == 11L));
+        verify(entityManager).persist(argThat((Product product) -> product.getChangeSeq() == 16L));
+        verify(repository).findExistingProductCodes(List.of("new1", "existing", "new2", "new3"));
+        verify(events).publishEvent(ProductChangedEvent.bulkChanged());
+    }
+
+    @Test
+    void addAllShouldFlushAndClearEveryBatch() {
+        properties.getBulk().setBatchSize(2);
+        when(entityManager.unwrap(Session.class))
+                .thenReturn(session);
+        when(repository.findExistingProductCodes(anyCollection()))
+                .thenReturn(Set.of());
+        when(changeSequences.next(3))
+                .thenReturn(new long[] { 1L, 2L, 3L });
+
+        service.addAll(List.of(
+                productCreateReq("a", "a", "1.00"),
+                productCreateReq("b", "b", "1.00"),
+                productCreateReq("c", "c", "1.00")
+        ));
+
+        verify(entityManager, times(3)).persist(any(Product.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void addAllShouldThrowBadRequestWhenTooManyProducts() {
+        properties.getBulk().setMaxItems(1);
+
+        var requests = List.of(productCreateReq("a", "a", "1.00"), productCreateReq("b", "b", "1.00"));
+        assertThrows(BadRequestException.class, () -> service.addAll(requests));
+
+        verify(entityManager, never()).persist(any());
     }
 
     @Test
     void findByProductCodeShouldReturnWhenExists() {
-        Product product = product("code", "name", "10.00");
-        when(repository.findByProductCode("code"))
-                .thenReturn(Optional.of(product));
+        when(repository.findResponseByProductCode("code"))
+                .thenReturn(Optional.of(response(1L, "code", "name", "10.00")));
 
         ProductResponse response = service.findByProductCode("code");
 
@@ -74,20 +223,127 @@ class ProductServiceImplTest {
         assertEquals(new BigDecimal("10.00"), response.price());
     }
 
+    @Test
+    void findByProductCodeShouldUseSnapshotWhenReady() {
+        var response = new ProductResponse(1L, "code", "name", new BigDecimal("10.00"), 0L);
+        when(snapshot.isReady())
+                .thenReturn(true);
+        when(snapshot.find("code"))
+                .thenReturn(Optional.of(response));
+        when(snapshot.find("missing"))
+                .thenReturn(Optional.empty());
+
+        assertEquals(response, service.findByProductCode("code"));
+        assertThrows(NotFoundException.class, () -> service.findByProductCode("missing"));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findAllShouldUseSnapshotWhenReady() {
+        var products = List.of(new ProductResponse(1L, "code", "name", new BigDecimal("10.00"), 0L));
+        when(snapshot.isReady())
+                .thenReturn(true);
+        when(snapshot.findAll())
+                .thenReturn(products);
+
+        assertEquals(products, service.findAll());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void searchShouldUseIndexWhenReady() {
+        var products = List.of(new ProductResponse(1L, "code", "name", new BigDecimal("10.00"), 0L));
+        when(searchIndex.isReady())
+                .thenReturn(true);
+        when(searchIndex.search("name", 5))
+                .thenReturn(products);
+
+        assertEquals(products, service.search("name", 5));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void searchShouldFallBackToRankedTermQueryWhileIndexLoads() {
+        when(repository.searchByTerms(anyList(), anyString(), anyString(), any(Limit.class)))
+                .thenReturn(List.of(response(1L, "code_1", "TV 50%", "10.00")));
+
+        List<ProductResponse> found = service.search(" TV 50%_ ", 5);
+
+        assertEquals("code_1", found.get(0).productCode());
+        verify(repository).searchByTerms(List.of("tv", "50"), "tv 50%_", "tv 50\\%\\_%", Limit.of(5));
+    }
+
+    @Test
+    void searchShouldNotQueryWhenQueryHasNoTerms() {
+        assertTrue(service.search(" %_ ", 5).isEmpty());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findPriceHistoryShouldReturnRecordedChanges() {
+        var history = List.of(new PriceHistoryItem(new BigDecimal("12.00"), 2L, Instant.parse("2025-01-01T10:00:00Z")));
+        when(priceHistoryRepository.findByProductCode("code", Limit.of(10)))
+                .thenReturn(history);
+
+        assertEquals(history, service.findPriceHistory("code", 10));
+        verify(repository, never()).existsByProductCode(any());
+    }
+
+    @Test
+    void findPriceHistoryShouldThrowNotFoundWhenProductIsMissing() {
+        when(priceHistoryRepository.findByProductCode("missing", Limit.of(10)))
+                .thenReturn(List.of());
+        when(repository.existsByProductCode("missing"))
+                .thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> service.findPriceHistory("missing", 10));
+        verify(metrics).notFound();
+    }
+
+    @Test
+    void findByPriceRangeShouldUseIndexWhenReady() {
+        var products = List.of(new ProductResponse(1L, "code", "name", new BigDecimal("10.00"), 0L));
+        when(priceIndex.isReady())
+                .thenReturn(true);
+        when(priceIndex.find(BigDecimal.ONE, new BigDecimal("20"), true, 5))
+                .thenReturn(products);
+
+        assertEquals(products, service.findByPriceRange(BigDecimal.ONE, new BigDecimal("20"), Sort.Direction.DESC, 5));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findByPriceRangeShouldQueryRepositoryWithDefaultBoundsWhileIndexLoads() {
+        when(repository.findResponsesByPriceBetween(any(), any(), any(Sort.class), any(Limit.class)))
+                .thenReturn(List.of(response(1L, "abc", "first", "1.00")));
+
+        List<ProductResponse> found = service.findByPriceRange(null, null, Sort.Direction.ASC, 5);
+
+        assertEquals("abc", found.get(0).productCode());
+        verify(repository).findResponsesByPriceBetween(BigDecimal.ZERO, new BigDecimal("99999999999999999.99"),
+                Sort.by("price", "id"), Limit.of(5));
+    }
+
+    @Test
+    void findByPriceRangeShouldRejectInvertedRange() {
+        assertThrows(BadRequestException.class,
+                () -> service.findByPriceRange(BigDecimal.TEN, BigDecimal.ONE, Sort.Direction.ASC, 5));
+        verifyNoInteractions(repository, priceIndex);
+    }
+
     @Test
     void findByProductCodeShouldThrowNotFoundWhenMissing() {
-        when(repository.findByProductCode("missing"))
+        when(repository.findResponseByProductCode("missing"))
                 .thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> service.findByProductCode("missing"));
+        verify(metrics).notFound();
     }
 
     @Test
-    void findAllShouldMapAllProductsToProductResponses() {
-        Product p1 = product("abc", "first", "1.00");
-        Product p2 = product("def", "second", "2.00");
-        when(repository.findAll())
-                .thenReturn(List.of(p1, p2));
+    void findAllShouldReturnProjectedProductResponses() {
+        when(repository.findAllResponses())
+                .thenReturn(List.of(response(1L, "abc", "first", "1.00"), response(2L, "def", "second", "2.00")));
 
         List<ProductResponse> list = service.findAll();
 
@@ -100,47 +356,235 @@ class ProductServiceImplTest {
         assertEquals(new BigDecimal("2.00"), list.get(1).price());
     }
 
+    @Test
+    void findPageShouldReturnNextCursorWhenMoreProductsExist() {
+        when(repository.findResponsesAfterId(0L, Limit.of(3)))
+                .thenReturn(List.of(response(1L, "abc", "first", "1.00"), response(2L, "def", "second", "2.00"),
+                        response(3L, "ghi", "third", "3.00")));
+
+        ProductPage page = service.findPage(2, null);
+
+        assertEquals(2, page.items().size());
+        assertEquals("abc", page.items().get(0).productCode());
+        assertEquals("def", page.items().get(1).productCode());
+        assertEquals(ProductCursors.encode(2L), page.nextCursor());
+    }
+
+    @Test
+    void findPageShouldContinueAfterCursorAndEndWithoutNextCursor() {
+        when(repository.findResponsesAfterId(2L, Limit.of(3)))
+                .thenReturn(List.of(response(3L, "ghi", "third", "3.00")));
+
+        ProductPage page = service.findPage(2, ProductCursors.encode(2L));
+
+        assertEquals(1, page.items().size());
+        assertEquals("ghi", page.items().get(0).productCode());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void findPageShouldThrowBadRequestWhenCursorInvalid() {
+        assertThrows(BadRequestException.class, () -> service.findPage(2, "not-a-cursor"));
+        verify(repository, never()).findResponsesAfterId(any(), any());
+    }
+
+    @Test
+    void exportAllShouldEmitEveryProjectedProduct() {
+        when(repository.streamAllResponses())
+                .thenReturn(Stream.of(response(1L, "abc", "first", "1.00"), response(2L, "def", "second", "2.00")));
+
+        List<ProductResponse> exported = new ArrayList<>();
+        service.exportAll(exported::add);
+
+        assertEquals(2, exported.size());
+        assertEquals("abc", exported.get(0).productCode());
+        assertEquals("def", exported.get(1).productCode());
+        verifyNoInteractions(entityManager);
+    }
+
     @Test
     void changePriceShouldUpdateAndReturnResponse() {
-        Product existing = product("code", "name", "10.00");
-        when(repository.findByProductCode("code"))
-                .thenReturn(Optional.of(existing));
+        var updated = new ProductResponse(1L, "code", "name", new BigDecimal("25.55"), 0L);
+        when(changeSequences.next())
+                .thenReturn(7L);
+        when(repository.updatePriceByProductCode("code", new BigDecimal("25.55"), null, 7L))
+                .thenReturn(Optional.of(updated));
 
         ProductResponse response = service.changePrice("code",
-                new PriceChangeRequest(new BigDecimal("25.55")));
+                new PriceChangeRequest(new BigDecimal("25.55")), null);
 
-        assertEquals(new BigDecimal("25.55"), response.price());
-        assertEquals(new BigDecimal("25.55"), existing.getPrice());
+        assertEquals(updated, response);
+        verify(repository, never()).findByProductCode(any());
         verify(repository, never()).save(any());
+        verify(events).publishEvent(ProductChangedEvent.priceChanged(response));
+        verify(metrics).repriced(1);
     }
 
     @Test
     void changePriceShouldThrowNotFoundWhenMissing() {
-        when(repository.findByProductCode("missing"))
+        when(repository.updatePriceByProductCode(eq("missing"), any(), any(), anyLong()))
                 .thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class, () -> service.changePrice("missing",
-                new PriceChangeRequest(new BigDecimal("5.00"))));
+                new PriceChangeRequest(new BigDecimal("5.00")), null));
+        assertThrows(NotFoundException.class, () -> service.changePrice("missing",
+                new PriceChangeRequest(new BigDecimal("5.00")), new ProductEtags.Tag(1L, 0L)));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void changePriceShouldThrowPreconditionFailedWhenVersionChanged() {
+        var expected = new ProductEtags.Tag(1L, 0L);
+        when(repository.updatePriceByProductCode(eq("code"), eq(new BigDecimal("5.00")), eq(expected), anyLong()))
+                .thenReturn(Optional.empty());
+        when(repository.existsByProductCode("code"))
+                .thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> service.changePrice("code",
+                new PriceChangeRequest(new BigDecimal("5.00")), expected));
+        verifyNoInteractions(events, metrics);
+    }
+
+    @Test
+    void changePricesByCodesShouldUpdateInChunksWithPercentageFactor() {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            codes.add("code" + i);
+        }
+        numberChanges();
+        when(repository.adjustPriceByProductCodes(anyCollection(), anyLong(), any(), any()))
+                .thenAnswer(inv -> {
+                    Consumer<ProductResponse> repriced = inv.getArgument(3);
+                    repriced.accept(new ProductResponse(1L, "code0", "name", new BigDecimal("8.75"), 1L));
+                    return 1000;
+                })
+                .thenReturn(500);
+
+        var request = new BulkPriceChangeRequest(codes, null, null, null,
+                PriceAdjustmentType.PERCENTAGE, new BigDecimal("-12.5"));
+
+        assertEquals(1500, service.changePrices(request).updated());
+        verify(events).publishEvent(ProductChangedEvent.bulkChanged());
+        verify(events).publishEvent(new PricesChangedEvent(
+                List.of(new ProductResponse(1L, "code0", "name", new BigDecimal("8.75"), 1L))));
+        verify(repository, times(2)).adjustPriceByProductCodes(anyCollection(), eq(875_000L), eq(BigDecimal.ZERO),
+                any());
+        verify(changeSequences).numbering(any());
+    }
+
+    @Test
+    void changePricesByFilterShouldEscapePrefixAndDefaultPriceRange() {
+        numberChanges();
+        when(repository.adjustPriceByFilter(anyString(), any(), any(), anyLong(), any(), any()))
+                .thenReturn(3);
+
+        var request = new BulkPriceChangeRequest(null, "tv_", null, null,
+                PriceAdjustmentType.ABSOLUTE, new BigDecimal("5.00"));
+
+        assertEquals(3, service.changePrices(request).updated());
+        verify(repository).adjustPriceByFilter(eq("tv\\_%"), eq(BigDecimal.ZERO),
+                any(BigDecimal.class), eq(1_000_000L), eq(new BigDecimal("5.00")), any());
+    }
+
+    @Test
+    void changePricesShouldThrowBadRequestWithoutExactlyOneSelection() {
+        var neither = new BulkPriceChangeRequest(null, null, null, null,
+                PriceAdjustmentType.ABSOLUTE, BigDecimal.ONE);
+        var both = new BulkPriceChangeRequest(List.of("a"), "a", null, null,
+                PriceAdjustmentType.ABSOLUTE, BigDecimal.ONE);
+        var tooLowPercentage = new BulkPriceChangeRequest(List.of("a"), null, null, null,
+                PriceAdjustmentType.PERCENTAGE, new BigDecimal("-100"));
+
+        assertThrows(BadRequestException.class, () -> service.changePrices(neither));
+        assertThrows(BadRequestException.class, () -> service.changePrices(both));
+        assertThrows(BadRequestException.class, () -> service.changePrices(tooLowPercentage));
+        verifyNoInteractions(repository, changeSequences);
     }
 
     @Test
     void deleteByProductCodeShouldDeleteWhenExists() {
-        var existing = product("code", "name", "10.00");
-        when(repository.findByProductCode("code"))
-                .thenReturn(Optional.of(existing));
+        when(changeSequences.next())
+                .thenReturn(9L);
+        when(repository.deleteByProductCode("code"))
+                .thenReturn(1);
 
         service.deleteByProductCode("code");
 
-        verify(repository).delete(existing);
+        verify(repository, never()).findByProductCode(any());
+        verify(tombstoneRepository).save(argThat(tombstone ->
+                tombstone.getProductCode().equals("code") && tombstone.getChangeSeq() == 9L));
+        verify(events).publishEvent(ProductChangedEvent.deleted("code"));
+        verify(metrics).deleted();
     }
 
     @Test
     void deleteByProductCodeShouldThrowNotFoundWhenMissing() {
-        when(repository.findByProductCode("missing"))
-                .thenReturn(Optional.empty());
+        when(repository.deleteByProductCode("missing"))
+                .thenReturn(0);
 
         assertThrows(NotFoundException.class, () -> service.deleteByProductCode("missing"));
-        verify(repository, never()).delete(any());
+        verifyNoInteractions(events, tombstoneRepository);
+    }
+
+    @Test
+    void findChangesShouldMergeProductsAndTombstonesInSequenceOrder() {
+        when(changeSequences.watermark())
+                .thenReturn(20L);
+        when(repository.findChangesBetween(10L, 20L, Limit.of(3)))
+                .thenReturn(List.of(new CatalogChange(11L, 1L, "a", "first", new BigDecimal("1.00"), 0L),
+                        new CatalogChange(13L, 2L, "b", "second", new BigDecimal("2.00"), 3L)));
+        when(tombstoneRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(10L, 20L,
+                Limit.of(3)))
+                .thenReturn(List.of(new ProductTombstone("c", 12L, Instant.now()), new ProductTombstone("d", 14L, Instant.now())));
+        when(tombstoneRepository.findPurgedThrough())
+                .thenReturn(0L);
+
+        CatalogChanges page = service.findChanges(10L, 2);
+
+        assertEquals(List.of(11L, 12L), page.changes().stream().map(CatalogChange::sequence).toList());
+        assertEquals(ProductChangedEvent.ChangeType.CREATED, page.changes().get(0).type());
+        assertEquals(ProductChangedEvent.ChangeType.DELETED, page.changes().get(1).type());
+        assertNull(page.changes().get(1).product());
+        assertEquals(12L, page.nextSince());
+        assertTrue(page.hasMore());
+        assertFalse(page.resync());
+    }
+
+    @Test
+    void findChangesShouldKeepSinceWhenNothingChanged() {
+        when(tombstoneRepository.findPurgedThrough())
+                .thenReturn(0L);
+
+        CatalogChanges page = service.findChanges(42L, 10);
+
+        assertTrue(page.changes().isEmpty());
+        assertEquals(42L, page.nextSince());
+        assertFalse(page.hasMore());
+        assertFalse(page.resync());
+    }
+
+    @Test
+    void findChangesShouldAskForResyncWhenSinceIsOlderThanPurgedTombstones() {
+        when(changeSequences.watermark())
+                .thenReturn(90L);
+        when(tombstoneRepository.findPurgedThrough())
+                .thenReturn(50L);
+
+        CatalogChanges page = service.findChanges(42L, 10);
+
+        assertTrue(page.resync());
+        assertTrue(page.changes().isEmpty());
+        assertEquals(90L, page.nextSince());
+        assertFalse(page.hasMore());
+    }
+
+    private void numberChanges() {
+        when(changeSequences.numbering(any()))
+                .thenAnswer(inv -> inv.<Supplier<?>>getArgument(0).get());
+    }
+
+    private static ProductResponse response(Long id, String productCode, String name, String price) {
+        return new ProductResponse(id, productCode, name, new BigDecimal(price), 0L);
     }
 
     private Product product(String productCode, String name, String price) {
@@ -151,6 +595,12 @@ class ProductServiceImplTest {
         );
     }
 
+    private Product product(Long id, String productCode, String name, String price) {
+        Product product = product(productCode, name, price);
+        product.setId(id);
+        return product;
+    }
+
     private ProductCreateRequest productCreateReq(String productCode, String name, String price) {
         return new ProductCreateRequest(
                 productCode,
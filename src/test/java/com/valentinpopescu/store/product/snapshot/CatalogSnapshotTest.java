@@ -0,0 +1,136 @@
+package com.valentinpopescu.store.product.snapshot;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import com.valentinpopescu.store.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotTest {
+
+    @Mock
+    private ProductRepository repository;
+    private ProductProperties properties;
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductProperties();
+        properties.getSnapshot().setEnabled(true);
+        snapshot = new CatalogSnapshot(repository, properties);
+    }
+
+    @Test
+    void loadShouldNotReadCatalogWhenDisabled() {
+        properties.getSnapshot().setEnabled(false);
+
+        snapshot.load();
+
+        assertFalse(snapshot.isReady());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void loadShouldServeProductsWithFixedPointPrices() {
+        stubCatalog(product(1L, "a1", "Chainsaw Stihl", "250.00"), product(2L, "ü2", "Café", "0.99"));
+
+        snapshot.load();
+
+        assertTrue(snapshot.isReady());
+        assertEquals(new ProductResponse(1L, "a1", "Chainsaw Stihl", new BigDecimal("250.00"), 0L),
+                snapshot.find("a1").orElseThrow());
+        assertEquals(new ProductResponse(2L, "ü2", "Café", new BigDecimal("0.99"), 0L),
+                snapshot.find("ü2").orElseThrow());
+        assertTrue(snapshot.find("missing").isEmpty());
+        assertEquals(List.of("a1", "ü2"), snapshot.findAll().stream().map(ProductResponse::productCode).toList());
+    }
+
+    @Test
+    void onProductChangedShouldApplyCreatePriceChangeAndDelete() {
+        stubCatalog(product(1L, "a1", "Chainsaw Stihl", "250.00"));
+        snapshot.load();
+
+        snapshot.onProductChanged(ProductChangedEvent.created(
+                new ProductResponse(5L, "b1", "Big Mac", new BigDecimal("9.99"), 0L)));
+        snapshot.onProductChanged(ProductChangedEvent.priceChanged(
+                new ProductResponse(1L, "a1", "Chainsaw Stihl", new BigDecimal("199.50"), 1L)));
+        snapshot.onProductChanged(ProductChangedEvent.deleted("b1"));
+
+        assertEquals(new BigDecimal("199.50"), snapshot.find("a1").orElseThrow().price());
+        assertEquals(1L, snapshot.find("a1").orElseThrow().version());
+        assertTrue(snapshot.find("b1").isEmpty());
+        assertEquals(1, snapshot.findAll().size());
+
+        snapshot.onProductChanged(ProductChangedEvent.created(
+                new ProductResponse(6L, "b1", "Big Mac", new BigDecimal("10.49"), 0L)));
+        assertEquals(6L, snapshot.find("b1").orElseThrow().id());
+    }
+
+    @Test
+    void onProductChangedShouldKeepEveryProductAcrossGrowthAndCompaction() {
+        stubCatalog();
+        snapshot.load();
+
+        for (int i = 0; i < 5000; i++) {
+            snapshot.onProductChanged(ProductChangedEvent.created(
+                    new ProductResponse((long) i + 1, "code" + i, "name" + i, new BigDecimal("1.00"), 0L)));
+        }
+        for (int i = 0; i < 5000; i++) {
+            if (i % 4 != 3) {
+                snapshot.onProductChanged(ProductChangedEvent.deleted("code" + i));
+            }
+        }
+
+        assertEquals(1250, snapshot.findAll().size());
+        assertTrue(snapshot.find("code0").isEmpty());
+        assertEquals("name4999", snapshot.find("code4999").orElseThrow().name());
+    }
+
+    @Test
+    void onBulkChangedShouldReloadFromRepository() {
+        stubCatalog(product(1L, "a1", "Chainsaw Stihl", "250.00"));
+        snapshot.load();
+        CountDownLatch reloading = new CountDownLatch(1);
+        when(repository.findResponsesAfterId(anyLong(), any(Limit.class)))
+                .thenAnswer(inv -> {
+                    reloading.await();
+                    return List.of(product(1L, "a1", "Chainsaw Stihl", "225.00"));
+                });
+
+        snapshot.onProductChanged(ProductChangedEvent.bulkChanged());
+
+        assertFalse(snapshot.isReady());
+        reloading.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(snapshot::isReady);
+        assertEquals(new BigDecimal("225.00"), snapshot.find("a1").orElseThrow().price());
+        verify(repository, times(2)).findResponsesAfterId(anyLong(), any(Limit.class));
+    }
+
+    private void stubCatalog(ProductResponse... products) {
+        when(repository.count())
+                .thenReturn((long) products.length);
+        when(repository.findResponsesAfterId(anyLong(), any(Limit.class)))
+                .thenReturn(List.of(products));
+    }
+
+    private ProductResponse product(Long id, String productCode, String name, String price) {
+        return new ProductResponse(id, productCode, name, new BigDecimal(price), 0L);
+    }
+}
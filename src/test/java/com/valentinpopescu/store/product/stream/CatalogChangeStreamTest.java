@@ -0,0 +1,166 @@
+package com.valentinpopescu.store.product.stream;
+
+import com.valentinpopescu.store.config.ProductProperties;
+import com.valentinpopescu.store.exceptions.ServiceUnavailableException;
+import com.valentinpopescu.store.product.dto.CatalogChange;
+import com.valentinpopescu.store.product.dto.ProductResponse;
+import com.valentinpopescu.store.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogChangeStreamTest {
+
+    @Mock
+    private SseEmitter emitter;
+    private ProductProperties properties;
+    private Queue<Runnable> tasks;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductProperties();
+        tasks = new ArrayDeque<>();
+    }
+
+    @Test
+    void subscribeShouldPushChangesWithIncreasingSequenceNumbers() throws Exception {
+        CatalogChangeStream stream = startedStream();
+        stream.subscribe(emitter, null);
+
+        stream.onProductChanged(ProductChangedEvent.created(product("a")));
+        stream.onProductChanged(ProductChangedEvent.deleted("a"));
+        runTasks();
+
+        List<CatalogChange> sent = sentChanges(2);
+        assertEquals(List.of(1L, 2L), sent.stream().map(CatalogChange::sequence).toList());
+        assertEquals(ProductChangedEvent.ChangeType.CREATED, sent.get(0).type());
+        assertEquals("a", sent.get(1).productCode());
+        verify(emitter, never()).complete();
+    }
+
+    @Test
+    void subscribeShouldReplayChangesAfterLastSequence() throws Exception {
+        CatalogChangeStream stream = startedStream();
+        stream.onProductChanged(ProductChangedEvent.created(product("a")));
+        stream.onProductChanged(ProductChangedEvent.created(product("b")));
+        stream.onProductChanged(ProductChangedEvent.created(product("c")));
+
+        stream.subscribe(emitter, stream.eventId(1));
+        runTasks();
+
+        assertEquals(List.of("b", "c"), sentChanges(2).stream().map(CatalogChange::productCode).toList());
+    }
+
+    @Test
+    void subscribeShouldAskForReloadWhenLastSequenceIsNoLongerBuffered() throws Exception {
+        properties.getStream().setReplaySize(2);
+        CatalogChangeStream stream = startedStream();
+        for (String code : List.of("a", "b", "c")) {
+            stream.onProductChanged(ProductChangedEvent.created(product(code)));
+        }
+
+        stream.subscribe(emitter, stream.eventId(0));
+        runTasks();
+
+        assertTrue(sentEventHeaders(1).get(0).startsWith("event:" + CatalogChangeStream.RESET_EVENT));
+        verify(emitter).complete();
+    }
+
+    @Test
+    void subscribeShouldAskForReloadWhenLastEventIdComesFromAnotherProcess() throws Exception {
+        CatalogChangeStream previous = startedStream();
+        CatalogChangeStream stream = startedStream();
+        stream.onProductChanged(ProductChangedEvent.created(product("a")));
+        stream.onProductChanged(ProductChangedEvent.created(product("b")));
+
+        stream.subscribe(emitter, previous.eventId(1));
+        runTasks();
+
+        assertTrue(sentEventHeaders(1).get(0).startsWith("event:" + CatalogChangeStream.RESET_EVENT));
+        verify(emitter).complete();
+    }
+
+    @Test
+    void slowSubscriberShouldBeAskedToReloadWithoutBlockingPublisher() throws Exception {
+        properties.getStream().setBufferSize(2);
+        CatalogChangeStream stream = startedStream();
+        stream.subscribe(emitter, null);
+
+        for (String code : List.of("a", "b", "c")) {
+            stream.onProductChanged(ProductChangedEvent.created(product(code)));
+        }
+        runTasks();
+
+        List<String> headers = sentEventHeaders(3);
+        assertTrue(headers.get(0).startsWith("id:" + stream.eventId(1) + "\n"));
+        assertTrue(headers.get(2).startsWith("event:" + CatalogChangeStream.RESET_EVENT));
+        verify(emitter).complete();
+    }
+
+    @Test
+    void subscribeShouldRejectWhenStoppedOrFull() {
+        properties.getStream().setMaxSubscribers(1);
+        CatalogChangeStream stream = new CatalogChangeStream(properties, new SimpleMeterRegistry(), tasks::add);
+
+        assertThrows(ServiceUnavailableException.class, () -> stream.subscribe(emitter, null));
+
+        stream.start();
+        stream.subscribe(emitter, null);
+        assertThrows(ServiceUnavailableException.class, () -> stream.subscribe(mock(SseEmitter.class), null));
+
+        stream.stop();
+        verify(emitter).complete();
+    }
+
+    private CatalogChangeStream startedStream() {
+        CatalogChangeStream stream = new CatalogChangeStream(properties, new SimpleMeterRegistry(), tasks::add);
+        stream.start();
+        return stream;
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private List<CatalogChange> sentChanges(int count) throws Exception {
+        return sentEvents(count).stream()
+                .flatMap(event -> event.build().stream())
+                .map(part -> part.getData())
+                .filter(CatalogChange.class::isInstance)
+                .map(CatalogChange.class::cast)
+                .toList();
+    }
+
+    private List<String> sentEventHeaders(int count) throws Exception {
+        return sentEvents(count).stream()
+                .map(event -> event.build().iterator().next().getData().toString())
+                .toList();
+    }
+
+    private List<SseEmitter.SseEventBuilder> sentEvents(int count) throws Exception {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> captor = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, times(count)).send(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static ProductResponse product(String productCode) {
+        return new ProductResponse(1L, productCode, "name", new BigDecimal("10.00"), 0L);
+    }
+}
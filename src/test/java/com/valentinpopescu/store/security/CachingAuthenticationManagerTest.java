@@ -0,0 +1,135 @@
+package com.valentinpopescu.store.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAuthenticationManagerTest {
+
+    @Mock
+    private AuthenticationManager delegate;
+
+    private InMemoryUserDetailsManager users;
+    private CachingAuthenticationManager manager;
+
+    @BeforeEach
+    void setUp() {
+        users = new InMemoryUserDetailsManager(
+                User.withUsername("user").password("{noop}user123").roles(Roles.USER.name()).build()
+        );
+        manager = new CachingAuthenticationManager(delegate, users, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void authenticate_repeatedCredentials_skipsDelegate() {
+        when(delegate.authenticate(any())).thenAnswer(inv -> authenticated());
+
+        manager.authenticate(request("user", "user123"));
+        Authentication result = manager.authenticate(request("user", "user123"));
+
+        verify(delegate, times(1)).authenticate(any());
+        assertTrue(result.isAuthenticated());
+        assertEquals("user", result.getName());
+        assertNull(result.getCredentials());
+        assertTrue(result.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+    }
+
+    @Test
+    void authenticate_badCredentials_areNeverCached() {
+        when(delegate.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(request("user", "wrong")));
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(request("user", "wrong")));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_differentPassword_goesToDelegate() {
+        when(delegate.authenticate(any())).thenAnswer(inv -> authenticated())
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        manager.authenticate(request("user", "user123"));
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(request("user", "user1234")));
+
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_passwordChanged_reverifiesWithDelegate() {
+        when(delegate.authenticate(any())).thenAnswer(inv -> authenticated())
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        manager.authenticate(request("user", "user123"));
+        users.updateUser(User.withUsername("user").password("{noop}changed").roles(Roles.USER.name()).build());
+
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(request("user", "user123")));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_passwordChangedDuringVerification_cachesVerifiedHash() {
+        when(delegate.authenticate(any())).thenAnswer(inv -> {
+            Authentication result = authenticated();
+            users.updateUser(User.withUsername("user").password("{noop}changed").roles(Roles.USER.name()).build());
+            return result;
+        }).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        Authentication result = manager.authenticate(request("user", "user123"));
+
+        assertNull(((UserDetails) result.getPrincipal()).getPassword());
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(request("user", "user123")));
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    @Test
+    void authenticate_userDisabled_rejectsCachedCredentials() {
+        when(delegate.authenticate(any())).thenAnswer(inv -> authenticated());
+
+        manager.authenticate(request("user", "user123"));
+        users.updateUser(User.withUsername("user").password("{noop}user123").roles(Roles.USER.name())
+                .disabled(true).build());
+
+        assertThrows(DisabledException.class, () -> manager.authenticate(request("user", "user123")));
+    }
+
+    @Test
+    void authenticate_userDeleted_reverifiesWithDelegate() {
+        when(delegate.authenticate(any())).thenAnswer(inv -> authenticated())
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        manager.authenticate(request("user", "user123"));
+        users.deleteUser("user");
+
+        assertThrows(BadCredentialsException.class, () -> manager.authenticate(request("user", "user123")));
+    }
+
+    private static UsernamePasswordAuthenticationToken request(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+
+    private Authentication authenticated() {
+        var user = users.loadUserByUsername("user");
+        return UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
+    }
+}